@@ -0,0 +1,182 @@
+package com.grouptileman.benchmark;
+
+import com.grouptileman.GroupTilemanAddon;
+import com.grouptileman.runelite.config.TilemanModeConfig;
+import com.grouptileman.runelite.tiles.TileLoader;
+import net.runelite.api.Client;
+import net.runelite.api.Player;
+import net.runelite.api.RenderOverview;
+import net.runelite.api.coords.LocalPoint;
+import net.runelite.api.coords.WorldPoint;
+import net.runelite.api.widgets.Widget;
+
+import java.awt.*;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Just enough of the client, config and plugin to drive the overlays outside of RuneLite.
+ * Interfaces are faked with proxies returning canned values by method name, or defaults otherwise.
+ */
+final class Fakes
+{
+	private static final int SCENE_CENTER = 52;
+
+	private Fakes()
+	{
+	}
+
+	@SuppressWarnings("unchecked")
+	static <T> T proxy(Class<T> type, Map<String, Object> values)
+	{
+		return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) ->
+		{
+			if (method.getDeclaringClass() == Object.class)
+			{
+				switch (method.getName())
+				{
+					case "equals":
+						return proxy == args[0];
+					case "hashCode":
+						return System.identityHashCode(proxy);
+					default:
+						return type.getSimpleName() + " fake";
+				}
+			}
+			if (values.containsKey(method.getName()))
+			{
+				return values.get(method.getName());
+			}
+			return defaultValue(method.getReturnType());
+		});
+	}
+
+	private static Object defaultValue(Class<?> type)
+	{
+		if (type == boolean.class)
+		{
+			return false;
+		}
+		if (type == int.class)
+		{
+			return 0;
+		}
+		if (type == long.class)
+		{
+			return 0L;
+		}
+		if (type == float.class)
+		{
+			return 0f;
+		}
+		if (type == double.class)
+		{
+			return 0d;
+		}
+		if (type == byte[][][].class)
+		{
+			return new byte[4][104][104];
+		}
+		if (type == int[][][].class)
+		{
+			return new int[4][105][105];
+		}
+		return null;
+	}
+
+	static Client client(SyntheticTiles tiles, float worldMapZoom)
+	{
+		Map<String, Object> player = new HashMap<>();
+		player.put("getWorldLocation", new WorldPoint(tiles.baseX() + SCENE_CENTER, tiles.baseY() + SCENE_CENTER, 0));
+		player.put("getLocalLocation", new LocalPoint(SCENE_CENTER * 128 + 64, SCENE_CENTER * 128 + 64));
+		player.put("getName", tiles.getPlayers().get(0));
+
+		Map<String, Object> widget = new HashMap<>();
+		widget.put("getBounds", new Rectangle(0, 0, 765, 503));
+		widget.put("getCanvasLocation", new net.runelite.api.Point(570, 10));
+		widget.put("getWidth", 150);
+		widget.put("getHeight", 150);
+
+		Map<String, Object> renderOverview = new HashMap<>();
+		renderOverview.put("getWorldMapZoom", worldMapZoom);
+		renderOverview.put("getWorldMapPosition", new net.runelite.api.Point(tiles.baseX() + SCENE_CENTER, tiles.baseY() + SCENE_CENTER));
+
+		Map<String, Object> client = new HashMap<>();
+		client.put("getLocalPlayer", proxy(Player.class, player));
+		client.put("getWidget", proxy(Widget.class, widget));
+		client.put("getRenderOverview", proxy(RenderOverview.class, renderOverview));
+		client.put("getMapRegions", tiles.getRegions());
+		client.put("getBaseX", tiles.baseX());
+		client.put("getBaseY", tiles.baseY());
+		client.put("getScale", 512);
+		client.put("getViewportWidth", 765);
+		client.put("getViewportHeight", 503);
+		client.put("getCameraX", SCENE_CENTER * 128);
+		client.put("getCameraY", SCENE_CENTER * 128 - 1500);
+		client.put("getCameraZ", -1200);
+		client.put("getCameraPitch", 256);
+		return proxy(Client.class, client);
+	}
+
+	static TilemanModeConfig config(List<String> players)
+	{
+		Map<String, Object> config = new HashMap<>();
+		config.put("drawTilesOnMinimap", true);
+		config.put("drawTilesOnWorldMap", true);
+		config.put("groupPlayerNames", String.join(",", players));
+		config.put("markerColor", Color.GREEN);
+		// large enough that every frame finishes its work, so the benchmarks measure all of it
+		config.put("frameBudget", 1000);
+		return proxy(TilemanModeConfig.class, config);
+	}
+
+	/**
+	 * Creates a plugin whose tiles are loaded synchronously from the synthetic config.
+	 */
+	static GroupTilemanAddon plugin(SyntheticTiles tiles, Client client)
+	{
+		TileLoader loader = new TileLoader(tiles.configStore(), Runnable::run);
+		loader.reload(tiles.scene(), tiles.roster());
+
+		GroupTilemanAddon plugin = new GroupTilemanAddon();
+		set(plugin, "client", client);
+		set(plugin, "tileLoader", loader);
+		set(plugin, "roster", tiles.roster());
+		return plugin;
+	}
+
+	/**
+	 * Calls the private injected constructor every overlay has.
+	 */
+	static <T> T overlay(Class<T> type, Client client, TilemanModeConfig config, GroupTilemanAddon plugin)
+	{
+		try
+		{
+			Constructor<T> constructor = type.getDeclaredConstructor(Client.class, TilemanModeConfig.class, GroupTilemanAddon.class);
+			constructor.setAccessible(true);
+			return constructor.newInstance(client, config, plugin);
+		}
+		catch (ReflectiveOperationException e)
+		{
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static void set(Object target, String name, Object value)
+	{
+		try
+		{
+			Field field = target.getClass().getDeclaredField(name);
+			field.setAccessible(true);
+			field.set(target, value);
+		}
+		catch (ReflectiveOperationException e)
+		{
+			throw new IllegalStateException(e);
+		}
+	}
+}
@@ -0,0 +1,76 @@
+package com.grouptileman.benchmark;
+
+import com.grouptileman.GroupTilemanAddon;
+import com.grouptileman.runelite.config.TilemanModeConfig;
+import com.grouptileman.runelite.overlay.TilemanModeMinimapOverlay;
+import com.grouptileman.runelite.overlay.TilemanModeOverlay;
+import com.grouptileman.runelite.overlay.TilemanModeWorldMapOverlay;
+import net.runelite.api.Client;
+import org.openjdk.jmh.annotations.*;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One frame of each overlay, drawn into an offscreen image standing in for the client canvas.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class OverlayRenderBenchmark
+{
+	@Param({"1", "6", "50"})
+	private int players;
+
+	@Param({"512", "2048"})
+	private int tilesPerRegion;
+
+	// pixels per tile, the world map goes from 0.5 fully zoomed out to 8
+	@Param({"0.5", "1", "4"})
+	private float worldMapZoom;
+
+	private Graphics2D graphics;
+	private TilemanModeOverlay sceneOverlay;
+	private TilemanModeMinimapOverlay minimapOverlay;
+	private TilemanModeWorldMapOverlay worldMapOverlay;
+
+	@Setup
+	public void setup()
+	{
+		SyntheticTiles tiles = SyntheticTiles.generate(players, 3, tilesPerRegion, 42);
+		Client client = Fakes.client(tiles, worldMapZoom);
+		TilemanModeConfig config = Fakes.config(tiles.getPlayers());
+		GroupTilemanAddon plugin = Fakes.plugin(tiles, client);
+
+		graphics = new BufferedImage(765, 503, BufferedImage.TYPE_INT_ARGB).createGraphics();
+		sceneOverlay = Fakes.overlay(TilemanModeOverlay.class, client, config, plugin);
+		minimapOverlay = Fakes.overlay(TilemanModeMinimapOverlay.class, client, config, plugin);
+		worldMapOverlay = Fakes.overlay(TilemanModeWorldMapOverlay.class, client, config, plugin);
+	}
+
+	@TearDown
+	public void tearDown()
+	{
+		graphics.dispose();
+	}
+
+	@Benchmark
+	public Dimension renderScene()
+	{
+		return sceneOverlay.render(graphics);
+	}
+
+	@Benchmark
+	public Dimension renderMinimap()
+	{
+		return minimapOverlay.render(graphics);
+	}
+
+	@Benchmark
+	public Dimension renderWorldMap()
+	{
+		graphics.setClip(null);
+		return worldMapOverlay.render(graphics);
+	}
+}
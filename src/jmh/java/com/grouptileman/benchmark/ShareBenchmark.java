@@ -0,0 +1,85 @@
+package com.grouptileman.benchmark;
+
+import com.google.gson.Gson;
+import com.grouptileman.runelite.config.Tile;
+import com.grouptileman.runelite.config.TilesFromUser;
+import com.grouptileman.runelite.share.codec.CompactShareCodec;
+import com.grouptileman.runelite.share.codec.JsonShareCodec;
+import com.grouptileman.runelite.share.codec.ShareCodec;
+import com.grouptileman.runelite.tiles.RegionTileCodec;
+import com.grouptileman.runelite.tiles.RegionTileSet;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The work behind GroundMarkerSharingManager's export and import, without the clipboard and config manager:
+ * streaming a player's stored region JSON into an export, and decoding a payload while re-encoding each
+ * region for storage.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ShareBenchmark
+{
+	// 400 regions of 800 tiles is a veteran account
+	@Param({"5", "20"})
+	private int regionsPerSide;
+
+	@Param({"200", "800"})
+	private int tilesPerRegion;
+
+	@Param({"compact", "json"})
+	private String format;
+
+	private ShareCodec codec;
+	private String playerName;
+	private SortedMap<Integer, String> storedRegions;
+	private String payload;
+
+	@Setup
+	public void setup() throws IOException
+	{
+		SyntheticTiles synthetic = SyntheticTiles.generate(1, regionsPerSide, tilesPerRegion, 42);
+		codec = "json".equals(format) ? new JsonShareCodec(new Gson()) : new CompactShareCodec();
+		TilesFromUser tiles = synthetic.tilesFromUser(synthetic.getPlayers().get(0));
+		playerName = tiles.getPlayerName();
+
+		storedRegions = new TreeMap<>();
+		for (Map.Entry<String, List<Tile>> entry : tiles.getRegionTiles().entrySet())
+		{
+			int regionId = RegionTileCodec.parseRegionId(entry.getKey(), "region_");
+			storedRegions.put(regionId, RegionTileCodec.encode(RegionTileSet.fromTiles(regionId, entry.getValue())));
+		}
+		payload = exportStored();
+	}
+
+	@Benchmark
+	public String exportStored() throws IOException
+	{
+		StringWriter out = new StringWriter();
+		codec.encode(playerName, storedRegions, false, out);
+		return out.toString();
+	}
+
+	@Benchmark
+	public String exportValidated() throws IOException
+	{
+		StringWriter out = new StringWriter();
+		codec.encode(playerName, storedRegions, true, out);
+		return out.toString();
+	}
+
+	@Benchmark
+	public void importTiles(Blackhole blackhole)
+	{
+		codec.decode(payload, (player, region) -> blackhole.consume(RegionTileCodec.encode(region)));
+	}
+}
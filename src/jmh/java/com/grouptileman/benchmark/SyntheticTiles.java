@@ -0,0 +1,182 @@
+package com.grouptileman.benchmark;
+
+import com.grouptileman.runelite.config.Tile;
+import com.grouptileman.runelite.config.TilesFromUser;
+import com.grouptileman.runelite.tiles.GroupRoster;
+import com.grouptileman.runelite.tiles.RegionTileCodec;
+import com.grouptileman.runelite.tiles.RegionTileSet;
+import com.grouptileman.runelite.tiles.SceneContext;
+import com.grouptileman.runelite.tiles.TileLoader;
+import com.grouptileman.runelite.tiles.store.TileStore;
+import lombok.Getter;
+
+import java.util.*;
+
+/**
+ * Generates group tiles as they would be stored in the groupTilemanAddon config group: a square of regions
+ * around Lumbridge, each holding a random walk shaped blob of tiles for every player.
+ */
+@Getter
+public class SyntheticTiles
+{
+	private static final int CENTER_REGION_X = 50;
+	private static final int CENTER_REGION_Y = 50;
+
+	private final List<String> players = new ArrayList<>();
+	private final int[] regions;
+	private final Map<String, String> config = new HashMap<>();
+	private final Map<String, RegionTileSet> decoded = new HashMap<>();
+	private final int tileCount;
+
+	private SyntheticTiles(int players, int regionsPerSide, int tilesPerRegion, long seed)
+	{
+		Random random = new Random(seed);
+		regions = new int[regionsPerSide * regionsPerSide];
+		int firstRegionX = CENTER_REGION_X - regionsPerSide / 2;
+		int firstRegionY = CENTER_REGION_Y - regionsPerSide / 2;
+		for (int i = 0; i < regions.length; i++)
+		{
+			regions[i] = ((firstRegionX + i / regionsPerSide) << 8) | (firstRegionY + i % regionsPerSide);
+		}
+
+		int tiles = 0;
+		for (int p = 0; p < players; p++)
+		{
+			String player = "Player " + p;
+			this.players.add(player);
+			for (int regionId : regions)
+			{
+				RegionTileSet region = blob(random, regionId, tilesPerRegion);
+				String key = TileLoader.regionKey(player, regionId);
+				config.put(key, RegionTileCodec.encode(region));
+				decoded.put(key, region);
+				tiles += region.size();
+			}
+		}
+		tileCount = tiles;
+	}
+
+	/**
+	 * @param players        group members, 1 to 50
+	 * @param regionsPerSide regions along each side of the generated square
+	 * @param tilesPerRegion tiles per player and region, up to 4096 on plane 0
+	 */
+	public static SyntheticTiles generate(int players, int regionsPerSide, int tilesPerRegion, long seed)
+	{
+		return new SyntheticTiles(players, regionsPerSide, tilesPerRegion, seed);
+	}
+
+	/**
+	 * A read only store over the generated config, decoding the JSON of a region on every load like the
+	 * config store does.
+	 */
+	public TileStore configStore()
+	{
+		return new TileStore()
+		{
+			@Override
+			public RegionTileSet load(String player, int regionId)
+			{
+				return RegionTileCodec.decode(regionId, config.get(TileLoader.regionKey(player, regionId)));
+			}
+
+			@Override
+			public Collection<Integer> regionIds(String player)
+			{
+				List<Integer> regionIds = new ArrayList<>();
+				for (int regionId : regions)
+				{
+					regionIds.add(regionId);
+				}
+				return regionIds;
+			}
+
+			@Override
+			public void save(String player, RegionTileSet region)
+			{
+				throw new UnsupportedOperationException();
+			}
+
+			@Override
+			public void setListener(Listener listener)
+			{
+			}
+		};
+	}
+
+	public GroupRoster roster()
+	{
+		return GroupRoster.of(players);
+	}
+
+	/**
+	 * A scene centered on the middle region of the generated regions, as after walking into them.
+	 */
+	public SceneContext scene()
+	{
+		return new SceneContext(regions, false, null, baseX(), baseY());
+	}
+
+	/**
+	 * A 13x13 chunk instance built from random, rotated chunks of the generated regions.
+	 */
+	public SceneContext instancedScene(long seed)
+	{
+		Random random = new Random(seed);
+		int[][][] chunks = new int[4][13][13];
+		for (int z = 0; z < 4; z++)
+		{
+			for (int x = 0; x < 13; x++)
+			{
+				for (int y = 0; y < 13; y++)
+				{
+					int regionId = regions[random.nextInt(regions.length)];
+					int templateChunkX = (RegionTileSet.baseX(regionId) >> 3) + random.nextInt(8);
+					int templateChunkY = (RegionTileSet.baseY(regionId) >> 3) + random.nextInt(8);
+					chunks[z][x][y] = 1 | random.nextInt(4) << 1 | templateChunkY << 3 | templateChunkX << 14 | z << 24;
+				}
+			}
+		}
+		return new SceneContext(regions, true, chunks, baseX(), baseY());
+	}
+
+	public int baseX()
+	{
+		return ((CENTER_REGION_X << 6) + 32 - 52) & ~7;
+	}
+
+	public int baseY()
+	{
+		return ((CENTER_REGION_Y << 6) + 32 - 52) & ~7;
+	}
+
+	public TilesFromUser tilesFromUser(String player)
+	{
+		TreeMap<String, List<Tile>> regionTiles = new TreeMap<>();
+		for (int regionId : regions)
+		{
+			regionTiles.put("region_" + regionId, decoded.get(TileLoader.regionKey(player, regionId)).toTiles());
+		}
+		return new TilesFromUser(player, regionTiles);
+	}
+
+	private static RegionTileSet blob(Random random, int regionId, int tiles)
+	{
+		RegionTileSet region = new RegionTileSet(regionId);
+		tiles = Math.min(tiles, RegionTileSet.REGION_SIZE * RegionTileSet.REGION_SIZE);
+		int x = random.nextInt(64);
+		int y = random.nextInt(64);
+		for (int step = 0; region.size() < tiles && step < tiles * 20; step++)
+		{
+			region.add(x, y, 0);
+			x = Math.min(63, Math.max(0, x + random.nextInt(3) - 1));
+			y = Math.min(63, Math.max(0, y + random.nextInt(3) - 1));
+		}
+		// very dense regions fill up the gaps the walk left
+		for (int i = 0; region.size() < tiles; i++)
+		{
+			region.add(i & 63, i >> 6, 0);
+		}
+		return region;
+	}
+}
@@ -0,0 +1,148 @@
+package com.grouptileman.benchmark;
+
+import com.grouptileman.runelite.tiles.RegionTileCodec;
+import com.grouptileman.runelite.tiles.RegionTileSet;
+import com.grouptileman.runelite.tiles.TileLoader;
+import com.grouptileman.runelite.tiles.TileSnapshot;
+import com.grouptileman.runelite.tiles.store.FileTileStore;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Full scene loads: store read, decode, translate and index for every player and loaded region.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class TileLoadBenchmark
+{
+	@Param({"1", "6", "50"})
+	private int players;
+
+	// 50 players x 9 regions x 2048 tiles is close to a million tiles
+	@Param({"64", "512", "2048"})
+	private int tilesPerRegion;
+
+	private SyntheticTiles tiles;
+	private TileLoader warmLoader;
+	private Path fileStoreDirectory;
+	private FileTileStore fileStore;
+
+	@Setup
+	public void setup() throws IOException
+	{
+		tiles = SyntheticTiles.generate(players, 3, tilesPerRegion, 42);
+		warmLoader = new TileLoader(tiles.configStore(), Runnable::run);
+		warmLoader.reload(tiles.scene(), tiles.roster());
+
+		fileStoreDirectory = Files.createTempDirectory("tile-store");
+		fileStore = FileTileStore.open(fileStoreDirectory);
+		for (Map.Entry<String, RegionTileSet> entry : tiles.getDecoded().entrySet())
+		{
+			String key = entry.getKey();
+			fileStore.save(key.substring(0, key.lastIndexOf("-region_")), entry.getValue());
+		}
+	}
+
+	@TearDown
+	public void tearDown() throws IOException
+	{
+		fileStore.close();
+		try (Stream<Path> files = Files.walk(fileStoreDirectory))
+		{
+			files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+		}
+	}
+
+	@Benchmark
+	public TileSnapshot reloadPointsCold()
+	{
+		TileLoader loader = new TileLoader(tiles.configStore(), Runnable::run);
+		loader.reload(tiles.scene(), tiles.roster());
+		return loader.getSnapshot();
+	}
+
+	@Benchmark
+	public TileSnapshot reloadPointsColdFromFiles()
+	{
+		TileLoader loader = new TileLoader(fileStore, Runnable::run);
+		loader.reload(tiles.scene(), tiles.roster());
+		return loader.getSnapshot();
+	}
+
+	@Benchmark
+	public TileSnapshot importRegions()
+	{
+		TileLoader loader = fileLoader();
+		saveRegions(loader, tiles.getPlayers().get(0));
+		return loader.getSnapshot();
+	}
+
+	@Benchmark
+	public TileSnapshot importRegionsBatched()
+	{
+		TileLoader loader = fileLoader();
+		loader.beginBatch();
+		try
+		{
+			saveRegions(loader, tiles.getPlayers().get(0));
+		}
+		finally
+		{
+			loader.endBatch();
+		}
+		return loader.getSnapshot();
+	}
+
+	@Benchmark
+	public TileSnapshot reloadPointsCached()
+	{
+		warmLoader.reload(tiles.scene(), tiles.roster());
+		return warmLoader.getSnapshot();
+	}
+
+	@Benchmark
+	public TileSnapshot reloadSlice()
+	{
+		warmLoader.invalidate(TileLoader.regionKey(tiles.getPlayers().get(0), tiles.getRegions()[0]));
+		warmLoader.reloadSlice(tiles.getPlayers().get(0), tiles.getRegions()[0]);
+		return warmLoader.getSnapshot();
+	}
+
+	@Benchmark
+	public void getConfiguration(Blackhole blackhole)
+	{
+		for (Map.Entry<String, String> entry : tiles.getConfig().entrySet())
+		{
+			int regionId = RegionTileCodec.parseRegionId(entry.getKey(), "region_");
+			RegionTileSet region = RegionTileCodec.decode(regionId, entry.getValue());
+			blackhole.consume(region);
+		}
+	}
+
+	private TileLoader fileLoader()
+	{
+		TileLoader loader = new TileLoader(fileStore, Runnable::run);
+		loader.reload(tiles.scene(), tiles.roster());
+		return loader;
+	}
+
+	/**
+	 * Writes every region of {@code player} again, each one reloading its slice like an import does.
+	 */
+	private void saveRegions(TileLoader loader, String player)
+	{
+		for (int regionId : tiles.getRegions())
+		{
+			loader.save(player, tiles.getDecoded().get(TileLoader.regionKey(player, regionId)));
+		}
+	}
+}
@@ -0,0 +1,54 @@
+package com.grouptileman.benchmark;
+
+import com.grouptileman.runelite.tiles.RegionTileSet;
+import com.grouptileman.runelite.tiles.SceneContext;
+import com.grouptileman.runelite.tiles.WorldTileSet;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * translateToWorldPoint for one player's loaded regions, outside of and inside an instance.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TranslateBenchmark
+{
+	@Param({"64", "512", "2048"})
+	private int tilesPerRegion;
+
+	private SyntheticTiles tiles;
+	private SceneContext scene;
+	private SceneContext instancedScene;
+
+	@Setup
+	public void setup()
+	{
+		tiles = SyntheticTiles.generate(1, 3, tilesPerRegion, 42);
+		scene = tiles.scene();
+		instancedScene = tiles.instancedScene(7);
+	}
+
+	@Benchmark
+	public WorldTileSet translate()
+	{
+		return translate(scene);
+	}
+
+	@Benchmark
+	public WorldTileSet translateInstanced()
+	{
+		return translate(instancedScene);
+	}
+
+	private WorldTileSet translate(SceneContext scene)
+	{
+		WorldTileSet into = new WorldTileSet();
+		for (RegionTileSet region : tiles.getDecoded().values())
+		{
+			scene.translate(region, into);
+		}
+		return into;
+	}
+}
@@ -26,33 +26,48 @@
  */
 package com.grouptileman;
 
-import com.google.common.base.Strings;
-import com.google.gson.Gson;
-import com.google.gson.reflect.TypeToken;
 import com.google.inject.Provides;
-import com.grouptileman.runelite.config.Tile;
 import com.grouptileman.runelite.config.TilemanModeConfig;
+import com.grouptileman.runelite.metrics.TileMetrics;
+import com.grouptileman.runelite.overlay.TilemanModeDebugOverlay;
 import com.grouptileman.runelite.overlay.TilemanModeMinimapOverlay;
 import com.grouptileman.runelite.overlay.TilemanModeOverlay;
 import com.grouptileman.runelite.overlay.TilemanModeWorldMapOverlay;
 import com.grouptileman.runelite.share.GroundMarkerSharingManager;
+import com.grouptileman.runelite.share.OwnTiles;
+import com.grouptileman.runelite.share.sync.GroupSync;
+import com.grouptileman.runelite.stats.GroupTileStats;
+import com.grouptileman.runelite.stats.TileStatsPanel;
+import com.grouptileman.runelite.tiles.GroupRegion;
+import com.grouptileman.runelite.tiles.GroupRoster;
+import com.grouptileman.runelite.tiles.RegionPrefetcher;
+import com.grouptileman.runelite.tiles.RegionTileCache;
+import com.grouptileman.runelite.tiles.RegionTileCodec;
+import com.grouptileman.runelite.tiles.RegionTileSet;
+import com.grouptileman.runelite.tiles.SceneContext;
+import com.grouptileman.runelite.tiles.TileLoader;
+import com.grouptileman.runelite.tiles.TileSnapshot;
+import com.grouptileman.runelite.tiles.WorldTileSet;
 import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 import net.runelite.api.*;
 import net.runelite.api.coords.WorldPoint;
 import net.runelite.api.events.*;
+import net.runelite.client.RuneLite;
+import net.runelite.client.callback.ClientThread;
 import net.runelite.client.config.ConfigManager;
 import net.runelite.client.eventbus.Subscribe;
 import net.runelite.client.events.ConfigChanged;
 import net.runelite.client.plugins.Plugin;
 import net.runelite.client.plugins.PluginDescriptor;
 import net.runelite.client.ui.ClientToolbar;
+import net.runelite.client.ui.NavigationButton;
 import net.runelite.client.ui.overlay.OverlayManager;
+import net.runelite.client.util.ImageUtil;
 
 import javax.inject.Inject;
 import java.util.*;
-import java.util.stream.Collectors;
 
 @Slf4j
 @PluginDescriptor(
@@ -64,11 +79,15 @@ public class GroupTilemanAddon extends Plugin {
     public static final String CONFIG_GROUP = "groupTilemanAddon";
     public static final String TILEMAN_CONFIG_GROUP = "tilemanMode";
     public static final String REGION_PREFIX = "region_";
+    // holds a tile file per group member
+    private static final String TILE_DIRECTORY = "group-tileman";
 
-    private static final Gson GSON = new Gson();
-
+    // parsed once per change of groupPlayerNames, immutable and read by the executor
     @Getter(AccessLevel.PUBLIC)
-    private final List<WorldPoint> points = new ArrayList<>();
+    private volatile GroupRoster roster = GroupRoster.EMPTY;
+
+    // the local player's name as of the last game tick, read by the executor
+    private volatile String localPlayerName = "";
 
     @Inject
     private Client client;
@@ -88,15 +107,35 @@ public class GroupTilemanAddon extends Plugin {
     @Inject
     private TilemanModeWorldMapOverlay worldMapOverlay;
 
+    @Inject
+    private TilemanModeDebugOverlay debugOverlay;
+
     @Inject
     private TilemanModeConfig config;
 
     @Inject
     private GroundMarkerSharingManager sharing;
 
+    @Inject
+    private GroupSync sync;
+
+    @Inject
+    private GroupTileStats stats;
+
     @Inject
     private ClientToolbar clientToolbar;
 
+    private NavigationButton statsButton;
+
+    @Inject
+    private ClientThread clientThread;
+
+    @Inject
+    private TileLoader tileLoader;
+
+    @Inject
+    private RegionPrefetcher prefetcher;
+
     @Provides
     TilemanModeConfig provideConfig(ConfigManager configManager) {
         return configManager.getConfig(TilemanModeConfig.class);
@@ -104,30 +143,89 @@ public class GroupTilemanAddon extends Plugin {
 
     @Subscribe
     public void onGameStateChanged(GameStateChanged gameStateChanged) {
-        reloadPoints();
+        if (gameStateChanged.getGameState() == GameState.LOGIN_SCREEN) {
+            localPlayerName = "";
+        }
+        if (gameStateChanged.getGameState() != GameState.LOGGED_IN) {
+            return;
+        }
+
+        // instances can swap their template chunks without changing the map regions
+        SceneContext loadedScene = tileLoader.getSnapshot().getScene();
+        if (client.isInInstancedRegion() || loadedScene == null || !Arrays.equals(client.getMapRegions(), loadedScene.getMapRegions())) {
+            reloadPoints();
+        }
     }
 
     @Subscribe
-    public void onConfigChanged(ConfigChanged event) {
-        reloadPoints();
-    }
+    public void onGameTick(GameTick gameTick) {
+        final Player player = client.getLocalPlayer();
+        localPlayerName = player != null && player.getName() != null ? player.getName() : "";
+        final int[] mapRegions = client.getMapRegions();
+        // instances aren't walked out of into a new scene
+        if (player == null || mapRegions == null || client.isInInstancedRegion()) {
+            return;
+        }
 
-    private void reloadPoints() {
-        points.clear();
-        int[] regions = client.getMapRegions();
+        final WorldPoint location = player.getWorldLocation();
+        prefetcher.playerMoved(location.getX(), location.getY(), client.getBaseX(), client.getBaseY(), mapRegions, roster);
+    }
 
-        if (regions == null) {
+    @Subscribe
+    public void onConfigChanged(ConfigChanged event) {
+        if (TILEMAN_CONFIG_GROUP.equals(event.getGroup())) {
+            // the player's own tiles, pushed to the group by the next sync
+            int regionId = OwnTiles.parseRegionId(event.getKey());
+            if (regionId >= 0) {
+                sync.regionChanged(regionId);
+                stats.ownRegionChanged(regionId);
+            }
+            return;
+        }
+        if (!CONFIG_GROUP.equals(event.getGroup())) {
             return;
         }
 
-        for (final String player: config.groupPlayerNames().split(",")) {
-            for (int regionId : regions) {
-                // load points for region
-                log.debug("Loading points for region {}", regionId);
-                Collection<WorldPoint> worldPoint = translateToWorldPoint(getTiles(player, regionId));
-                points.addAll(worldPoint);
+        final String key = event.getKey();
+        tileLoader.invalidate(key);
+
+        if ("dumpMetrics".equals(key)) {
+            if (config.dumpMetrics()) {
+                log.info("Tile cache: {}", tileLoader.getTileCache());
+                tileLoader.getMetrics().dump();
+                tileLoader.getMetrics().reset();
+                configManager.setConfiguration(CONFIG_GROUP, "dumpMetrics", "false");
             }
+            return;
+        }
+
+        if ("syncEndpoint".equals(key) || "syncGroup".equals(key)) {
+            sync.reset();
+            return;
+        }
+
+        if ("groupPlayerNames".equals(key)) {
+            roster = GroupRoster.parse(config.groupPlayerNames());
+            clientThread.invoke(this::reloadPoints);
+            stats.rebuild(roster);
+            return;
+        }
+
+        final int regionSeparator = key.lastIndexOf("-" + REGION_PREFIX);
+        final int regionId = RegionTileCodec.parseRegionId(key, REGION_PREFIX);
+        if (regionSeparator <= 0 || regionId < 0) {
+            // colours and toggles are read by the overlays on every frame
+            return;
         }
+
+        tileLoader.regionChanged(key.substring(0, regionSeparator), regionId);
+    }
+
+    /**
+     * Captures the scene and schedules a full load. Must be called on the client thread.
+     */
+    private void reloadPoints() {
+        tileLoader.reload(SceneContext.capture(client), roster);
     }
 
     @Override
@@ -137,10 +235,26 @@ public class GroupTilemanAddon extends Plugin {
         overlayManager.add(overlay);
         overlayManager.add(minimapOverlay);
         overlayManager.add(worldMapOverlay);
+        overlayManager.add(debugOverlay);
 
         sharing.addImportExportMenuOptions();
 
-        reloadPoints();
+        tileLoader.openFileStore(RuneLite.RUNELITE_DIR.toPath().resolve(TILE_DIRECTORY));
+        roster = GroupRoster.parse(config.groupPlayerNames());
+        clientThread.invoke(this::reloadPoints);
+        sync.start();
+
+        TileStatsPanel statsPanel = new TileStatsPanel();
+        stats.setListener(statsPanel::update);
+        tileLoader.addListener(stats);
+        stats.rebuild(roster);
+        statsButton = NavigationButton.builder()
+                .tooltip("Group tiles")
+                .icon(ImageUtil.resizeImage(ImageUtil.loadImageResource(getClass(), "/icon.png"), 16, 16))
+                .priority(8)
+                .panel(statsPanel)
+                .build();
+        clientToolbar.addNavigation(statsButton);
     }
 
     @Override
@@ -150,7 +264,15 @@ public class GroupTilemanAddon extends Plugin {
         overlayManager.remove(overlay);
         overlayManager.remove(minimapOverlay);
         overlayManager.remove(worldMapOverlay);
-        points.clear();
+        overlayManager.remove(debugOverlay);
+        minimapOverlay.clearCache();
+        worldMapOverlay.clearCache();
+        sync.stop();
+        clientToolbar.removeNavigation(statsButton);
+        tileLoader.removeListener(stats);
+        stats.setListener(null);
+        tileLoader.clear();
+        tileLoader.closeStore();
 
         sharing.removeMenuOptions();
     }
@@ -159,38 +281,47 @@ public class GroupTilemanAddon extends Plugin {
         return client.getLocalPlayer() != null && client.getLocalPlayer().getName() != null ? client.getLocalPlayer().getName() : "";
     }
 
-    public Collection<Tile> getTiles(String player, int regionId) {
-        if (player == null || player.isEmpty()) throw new NullPointerException("Empty player");
-        return getConfiguration(player + "-" + REGION_PREFIX + regionId);
+    /**
+     * Returns the local player's name as of the last game tick, or an empty string when logged out. Unlike
+     * {@link #getPlayerName()} it is safe to call off the client thread.
+     */
+    public String getLocalPlayerName() {
+        return localPlayerName;
     }
 
-    private Collection<Tile> getTiles(String player, String regionId) {
-        if (player == null || player.isEmpty()) throw new NullPointerException("Empty player");
-        return getConfiguration(player + "-" + REGION_PREFIX + regionId);
+    /**
+     * Returns the loaded tiles of the current snapshot. The returned set is never modified, so callers
+     * should read it once per frame.
+     */
+    public WorldTileSet getPoints() {
+        return tileLoader.getSnapshot().getPoints();
     }
 
-    private Collection<Tile> getConfiguration(String key) {
-        String json = configManager.getConfiguration(CONFIG_GROUP, key);
+    public TileSnapshot getSnapshot() {
+        return tileLoader.getSnapshot();
+    }
 
-        if (Strings.isNullOrEmpty(json)) {
-            return Collections.emptyList();
-        }
+    public RegionTileSet getTiles(String player, int regionId) {
+        return tileLoader.getTiles(player, regionId);
+    }
 
-        return GSON.fromJson(json, new TypeToken<List<Tile>>() {}.getType());
+    public List<String> getGroupPlayers() {
+        return roster.getPlayers();
     }
 
-    private Collection<WorldPoint> translateToWorldPoint(Collection<Tile> points) {
-        if (points.isEmpty()) {
-            return Collections.emptyList();
-        }
+    /**
+     * Returns every group member's untranslated tiles in {@code regionId}, or null while they are loaded in
+     * the background.
+     */
+    public GroupRegion getLoadedGroupRegion(int regionId) {
+        return tileLoader.getLoadedGroupRegion(roster, regionId);
+    }
+
+    public TileMetrics getMetrics() {
+        return tileLoader.getMetrics();
+    }
 
-        return points.stream()
-                .map(point -> WorldPoint.fromRegion(point.getRegionId(), point.getRegionX(), point.getRegionY(), point.getZ()))
-                .flatMap(worldPoint ->
-                {
-                    final Collection<WorldPoint> localWorldPoints = WorldPoint.toLocalInstance(client, worldPoint);
-                    return localWorldPoints.stream();
-                })
-                .collect(Collectors.toList());
+    public RegionTileCache getTileCache() {
+        return tileLoader.getTileCache();
     }
 }
@@ -0,0 +1,18 @@
+package com.grouptileman.runelite.config;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+@Getter
+@RequiredArgsConstructor
+public enum ShareFormat {
+    COMPACT("Compact"),
+    JSON("JSON");
+
+    private final String name;
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
@@ -45,6 +45,22 @@ public interface TilemanModeConfig extends Config {
     )
     String settingsSection = "settings";
 
+    @ConfigSection(
+            name = "Group sync",
+            description = "Shares tiles with the group automatically through a relay server",
+            position = 50,
+            closedByDefault = true
+    )
+    String syncSection = "sync";
+
+    @ConfigSection(
+            name = "Debug",
+            description = "Performance diagnostics",
+            position = 100,
+            closedByDefault = true
+    )
+    String debugSection = "debug";
+
     @ConfigItem(
             keyName = "drawOnMinimap",
             name = "Draw tiles on minimap",
@@ -90,4 +106,96 @@ public interface TilemanModeConfig extends Config {
         return Color.GREEN;
     }
 
-}
\ No newline at end of file
+    @ConfigItem(
+            keyName = "exportFormat",
+            name = "Export format",
+            section = settingsSection,
+            description = "Compact exports are much smaller, JSON is readable by older versions of the plugin",
+            position = 6
+    )
+    default ShareFormat exportFormat() {
+        return ShareFormat.COMPACT;
+    }
+
+    @ConfigItem(
+            keyName = "validateExport",
+            name = "Validate exports",
+            section = settingsSection,
+            description = "Checks every region while exporting and leaves out malformed tiles, slower on large accounts",
+            position = 7
+    )
+    default boolean validateExport() {
+        return false;
+    }
+
+    @Range(min = 1, max = 50)
+    @Units(Units.MILLISECONDS)
+    @ConfigItem(
+            keyName = "frameBudget",
+            name = "Frame budget",
+            section = settingsSection,
+            description = "Time each overlay may spend redrawing tiles in a frame, the rest is spread over the next frames",
+            position = 8
+    )
+    default int frameBudget() {
+        return 4;
+    }
+
+    @ConfigItem(
+            keyName = "syncEndpoint",
+            name = "Relay URL",
+            section = syncSection,
+            description = "Address of the relay the group syncs through, leave empty to share by clipboard only",
+            position = 51
+    )
+    default String syncEndpoint() {
+        return "";
+    }
+
+    @ConfigItem(
+            keyName = "syncGroup",
+            name = "Group key",
+            section = syncSection,
+            description = "Shared by every member of the group, anyone with the key can read and add tiles",
+            position = 52,
+            secret = true
+    )
+    default String syncGroup() {
+        return "";
+    }
+
+    @Range(min = 2, max = 300)
+    @Units(Units.SECONDS)
+    @ConfigItem(
+            keyName = "syncInterval",
+            name = "Sync interval",
+            section = syncSection,
+            description = "How often changes are pushed to and pulled from the relay",
+            position = 53
+    )
+    default int syncInterval() {
+        return 5;
+    }
+
+    @ConfigItem(
+            keyName = "showDebugOverlay",
+            name = "Show performance overlay",
+            section = debugSection,
+            description = "Shows load times, cache hit rates and per frame overlay costs",
+            position = 101
+    )
+    default boolean showDebugOverlay() {
+        return false;
+    }
+
+    @ConfigItem(
+            keyName = "dumpMetrics",
+            name = "Dump metrics to log",
+            section = debugSection,
+            description = "Writes all recorded metrics to the client log and resets them",
+            position = 102
+    )
+    default boolean dumpMetrics() {
+        return false;
+    }
+}
@@ -0,0 +1,80 @@
+package com.grouptileman.runelite.metrics;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Registry of the timers and counters recorded by the load pipeline and the overlays.
+ */
+@Slf4j
+public class TileMetrics {
+    public static final String RELOAD = "load.reload";
+    public static final String RELOAD_SLICE = "load.reloadSlice";
+    public static final String REGIONS_DECODED = "load.regionsDecoded";
+    public static final String TILES_DECODED = "load.tilesDecoded";
+    public static final String PREFETCHED = "load.prefetched";
+    public static final String PREFETCH_USED = "load.prefetchUsed";
+
+    public static final String SYNC_BYTES_SENT = "sync.bytesSent";
+    public static final String SYNC_BYTES_RECEIVED = "sync.bytesReceived";
+    public static final String SYNC_REGIONS_SENT = "sync.regionsSent";
+    public static final String SYNC_REGIONS_RECEIVED = "sync.regionsReceived";
+    public static final String SYNC_REGIONS_REJECTED = "sync.regionsRejected";
+
+    public static final String SCENE = "scene";
+    public static final String MINIMAP = "minimap";
+    public static final String WORLD_MAP = "worldMap";
+
+    private final Map<String, Timer> timers = new ConcurrentSkipListMap<>();
+    private final Map<String, AtomicLong> counters = new ConcurrentHashMap<>();
+
+    public Timer timer(String name) {
+        return timers.computeIfAbsent(name, n -> new Timer());
+    }
+
+    public AtomicLong counter(String name) {
+        return counters.computeIfAbsent(name, n -> new AtomicLong());
+    }
+
+    /**
+     * Records one overlay frame: its duration, and how many tiles it looked at and actually drew.
+     */
+    public void recordFrame(String overlay, long startNanos, int considered, int drawn) {
+        timer(overlay + ".frame").record(System.nanoTime() - startNanos);
+        counter(overlay + ".considered").addAndGet(considered);
+        counter(overlay + ".drawn").addAndGet(drawn);
+    }
+
+    /**
+     * Records an overlay frame that ran out of budget and left work for later frames.
+     */
+    public void recordDeferred(String overlay) {
+        counter(overlay + ".deferred").incrementAndGet();
+    }
+
+    /**
+     * Returns the average per frame of an overlay counter.
+     */
+    public long perFrame(String overlay, String counter) {
+        long frames = timer(overlay + ".frame").getCount();
+        return frames == 0 ? 0 : counter(overlay + "." + counter).get() / frames;
+    }
+
+    public Map<String, Timer> getTimers() {
+        return timers;
+    }
+
+    public void reset() {
+        timers.values().forEach(Timer::reset);
+        counters.values().forEach(counter -> counter.set(0));
+    }
+
+    public void dump() {
+        timers.forEach((name, timer) -> log.info("{}: {}", name, timer));
+        new ConcurrentSkipListMap<>(counters).forEach((name, counter) -> log.info("{}: {}", name, counter.get()));
+    }
+}
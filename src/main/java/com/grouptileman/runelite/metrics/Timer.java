@@ -0,0 +1,70 @@
+package com.grouptileman.runelite.metrics;
+
+import java.util.Arrays;
+
+/**
+ * Histogram of durations, bucketed on fixed microsecond boundaries.
+ */
+public class Timer {
+    private static final long[] BUCKET_BOUNDS_MICROS = {10, 25, 50, 100, 250, 500, 1_000, 2_500, 5_000, 10_000, 25_000, 50_000, 100_000, Long.MAX_VALUE};
+
+    private final long[] buckets = new long[BUCKET_BOUNDS_MICROS.length];
+    private long count;
+    private long totalNanos;
+    private long maxNanos;
+
+    public synchronized void record(long nanos) {
+        long micros = nanos / 1_000;
+        int bucket = 0;
+        while (micros >= BUCKET_BOUNDS_MICROS[bucket]) {
+            bucket++;
+        }
+        buckets[bucket]++;
+        count++;
+        totalNanos += nanos;
+        maxNanos = Math.max(maxNanos, nanos);
+    }
+
+    public synchronized long getCount() {
+        return count;
+    }
+
+    public synchronized double getMeanMillis() {
+        return count == 0 ? 0 : totalNanos / (double) count / 1_000_000;
+    }
+
+    public synchronized double getMaxMillis() {
+        return maxNanos / 1_000_000d;
+    }
+
+    /**
+     * Returns the upper bound of the bucket holding the given percentile, in milliseconds.
+     */
+    public synchronized double getPercentileMillis(double percentile) {
+        if (count == 0) {
+            return 0;
+        }
+
+        long rank = (long) Math.ceil(percentile * count);
+        long seen = 0;
+        for (int i = 0; i < buckets.length; i++) {
+            seen += buckets[i];
+            if (seen >= rank) {
+                return i == buckets.length - 1 ? getMaxMillis() : BUCKET_BOUNDS_MICROS[i] / 1_000d;
+            }
+        }
+        return getMaxMillis();
+    }
+
+    public synchronized void reset() {
+        Arrays.fill(buckets, 0);
+        count = 0;
+        totalNanos = 0;
+        maxNanos = 0;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("count=%d mean=%.3fms p95<=%.3fms max=%.3fms", count, getMeanMillis(), getPercentileMillis(0.95), getMaxMillis());
+    }
+}
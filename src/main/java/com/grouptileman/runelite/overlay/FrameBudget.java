@@ -0,0 +1,49 @@
+package com.grouptileman.runelite.overlay;
+
+import com.grouptileman.runelite.config.TilemanModeConfig;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounds the expensive work an overlay does in one frame, such as tracing, projecting or rasterizing tiles.
+ * Work is only started while the frame's budget lasts; what doesn't fit is picked up by later frames, and
+ * until then the overlay draws a cheaper stand-in.
+ */
+class FrameBudget {
+    private final TilemanModeConfig config;
+    private long nanos;
+    private long deadline;
+    private boolean deferred;
+
+    FrameBudget(TilemanModeConfig config) {
+        this.config = config;
+    }
+
+    /**
+     * Starts the budget of a frame that began at {@code startNanos}.
+     */
+    void start(long startNanos) {
+        nanos = TimeUnit.MILLISECONDS.toNanos(config.frameBudget());
+        deadline = startNanos + nanos;
+        deferred = false;
+    }
+
+    long getNanos() {
+        return nanos;
+    }
+
+    boolean isExhausted() {
+        return System.nanoTime() - deadline >= 0;
+    }
+
+    /**
+     * Notes that the frame left work for a later one.
+     */
+    void defer() {
+        deferred = true;
+    }
+
+    boolean isDeferred() {
+        return deferred;
+    }
+}
@@ -0,0 +1,123 @@
+package com.grouptileman.runelite.overlay;
+
+import com.grouptileman.runelite.tiles.RegionTileSet;
+import com.grouptileman.runelite.tiles.TileRectangles;
+import com.grouptileman.runelite.tiles.TileSnapshot;
+import net.runelite.api.Constants;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+import java.util.Iterator;
+
+/**
+ * The marked tiles of the loaded scene drawn into one image per plane, one pixel per tile with pixel
+ * {@code (x, y)} holding scene tile {@code (x, y)}. A plane's image is redrawn only when the tiles,
+ * scene or marker colour change, a few regions per frame within the frame's budget; until the new image is
+ * complete the previous one stands in.
+ */
+class MinimapMask {
+    private final Plane[] planes = new Plane[RegionTileSet.PLANES];
+    private final Plane[] pending = new Plane[RegionTileSet.PLANES];
+
+    private static class Plane {
+        final BufferedImage image = new BufferedImage(Constants.SCENE_SIZE, Constants.SCENE_SIZE, BufferedImage.TYPE_INT_ARGB);
+        final long version;
+        final int baseX;
+        final int baseY;
+        final int rgb;
+        // regions of the snapshot still to be drawn
+        final Iterator<RegionTileSet> regions;
+        int tileCount;
+
+        Plane(TileSnapshot snapshot, int baseX, int baseY, Color color) {
+            this.version = snapshot.getVersion();
+            this.baseX = baseX;
+            this.baseY = baseY;
+            this.rgb = color.getRGB();
+            this.regions = snapshot.getPoints().getRegions().iterator();
+        }
+
+        boolean matches(TileSnapshot snapshot, int baseX, int baseY, Color color) {
+            return version == snapshot.getVersion() && this.baseX == baseX && this.baseY == baseY && rgb == color.getRGB();
+        }
+
+        boolean isComplete() {
+            return !regions.hasNext();
+        }
+
+        BufferedImage getImage() {
+            return tileCount == 0 ? null : image;
+        }
+    }
+
+    /**
+     * Returns the mask of {@code plane}, or null if the scene has no marked tiles on it.
+     */
+    BufferedImage get(TileSnapshot snapshot, int plane, int baseX, int baseY, Color color, FrameBudget budget) {
+        final Plane mask = planes[plane];
+        if (mask != null && mask.matches(snapshot, baseX, baseY, color)) {
+            return mask.getImage();
+        }
+
+        Plane next = pending[plane];
+        if (next == null || !next.matches(snapshot, baseX, baseY, color)) {
+            next = new Plane(snapshot, baseX, baseY, color);
+            pending[plane] = next;
+        }
+        draw(next, plane, budget);
+        if (next.isComplete()) {
+            planes[plane] = next;
+            pending[plane] = null;
+            return next.getImage();
+        }
+
+        budget.defer();
+        // an old mask of another scene would be misplaced, the part drawn so far is closer
+        return mask != null && mask.baseX == baseX && mask.baseY == baseY ? mask.getImage() : next.image;
+    }
+
+    void clear() {
+        Arrays.fill(planes, null);
+        Arrays.fill(pending, null);
+    }
+
+    /**
+     * Draws regions into {@code mask} until it is complete or the budget is spent, at least one per frame.
+     */
+    private static void draw(Plane mask, int plane, FrameBudget budget) {
+        Graphics2D graphics = mask.image.createGraphics();
+        graphics.setColor(new Color(mask.rgb, true));
+        // only the rectangle of scene tiles that lies inside the image is drawn
+        graphics.setClip(0, 0, Constants.SCENE_SIZE, Constants.SCENE_SIZE);
+
+        while (mask.regions.hasNext()) {
+            RegionTileSet region = mask.regions.next();
+            int offsetX = RegionTileSet.baseX(region.getRegionId()) - mask.baseX;
+            int offsetY = RegionTileSet.baseY(region.getRegionId()) - mask.baseY;
+            if (offsetX >= Constants.SCENE_SIZE || offsetY >= Constants.SCENE_SIZE
+                    || offsetX + RegionTileSet.REGION_SIZE <= 0 || offsetY + RegionTileSet.REGION_SIZE <= 0) {
+                continue;
+            }
+
+            for (int rectangle : region.rectangles(plane)) {
+                int x = offsetX + TileRectangles.x(rectangle);
+                int y = offsetY + TileRectangles.y(rectangle);
+                int width = TileRectangles.width(rectangle);
+                int height = TileRectangles.height(rectangle);
+                graphics.fillRect(x, y, width, height);
+
+                int visibleWidth = Math.min(x + width, Constants.SCENE_SIZE) - Math.max(x, 0);
+                int visibleHeight = Math.min(y + height, Constants.SCENE_SIZE) - Math.max(y, 0);
+                if (visibleWidth > 0 && visibleHeight > 0) {
+                    mask.tileCount += visibleWidth * visibleHeight;
+                }
+            }
+
+            if (budget.isExhausted()) {
+                break;
+            }
+        }
+        graphics.dispose();
+    }
+}
@@ -0,0 +1,74 @@
+package com.grouptileman.runelite.overlay;
+
+import com.grouptileman.GroupTilemanAddon;
+import com.grouptileman.runelite.config.TilemanModeConfig;
+import com.grouptileman.runelite.metrics.TileMetrics;
+import com.grouptileman.runelite.metrics.Timer;
+import com.grouptileman.runelite.tiles.RegionTileCache;
+import net.runelite.client.ui.overlay.OverlayPanel;
+import net.runelite.client.ui.overlay.OverlayPosition;
+import net.runelite.client.ui.overlay.components.LineComponent;
+import net.runelite.client.ui.overlay.components.TitleComponent;
+
+import javax.inject.Inject;
+import java.awt.*;
+
+/**
+ * Panel showing the recorded load, sync and render metrics, enabled from the debug config section.
+ */
+public class TilemanModeDebugOverlay extends OverlayPanel {
+    private final TilemanModeConfig config;
+    private final GroupTilemanAddon plugin;
+
+    @Inject
+    private TilemanModeDebugOverlay(TilemanModeConfig config, GroupTilemanAddon plugin) {
+        this.config = config;
+        this.plugin = plugin;
+        setPosition(OverlayPosition.TOP_LEFT);
+    }
+
+    @Override
+    public Dimension render(Graphics2D graphics) {
+        if (!config.showDebugOverlay()) {
+            return null;
+        }
+
+        final TileMetrics metrics = plugin.getMetrics();
+        final RegionTileCache cache = plugin.getTileCache();
+
+        panelComponent.getChildren().add(TitleComponent.builder().text("Group tileman").build());
+        addTimer("Reload", metrics.timer(TileMetrics.RELOAD));
+        addTimer("Region reload", metrics.timer(TileMetrics.RELOAD_SLICE));
+        addLine("Decoded", metrics.counter(TileMetrics.REGIONS_DECODED).get() + " regions, "
+                + metrics.counter(TileMetrics.TILES_DECODED).get() + " tiles");
+        addLine("Prefetch", metrics.counter(TileMetrics.PREFETCHED).get() + " regions, "
+                + metrics.counter(TileMetrics.PREFETCH_USED).get() + " used");
+        addLine("Cache", cache.size() + "/" + cache.getCapacity() + ", " + cache.getHits() + " hits, "
+                + cache.getMisses() + " misses, " + cache.getEvictions() + " evicted");
+        addLine("Sync sent", metrics.counter(TileMetrics.SYNC_REGIONS_SENT).get() + " regions, "
+                + metrics.counter(TileMetrics.SYNC_BYTES_SENT).get() / 1024 + " KB");
+        addLine("Sync received", metrics.counter(TileMetrics.SYNC_REGIONS_RECEIVED).get() + " regions, "
+                + metrics.counter(TileMetrics.SYNC_BYTES_RECEIVED).get() / 1024 + " KB, "
+                + metrics.counter(TileMetrics.SYNC_REGIONS_REJECTED).get() + " rejected");
+        addFrame("Scene", metrics, TileMetrics.SCENE);
+        addFrame("Minimap", metrics, TileMetrics.MINIMAP);
+        addFrame("World map", metrics, TileMetrics.WORLD_MAP);
+
+        return super.render(graphics);
+    }
+
+    private void addTimer(String name, Timer timer) {
+        addLine(name, String.format("%.2f ms avg, %.2f max", timer.getMeanMillis(), timer.getMaxMillis()));
+    }
+
+    private void addFrame(String name, TileMetrics metrics, String overlay) {
+        Timer frames = metrics.timer(overlay + ".frame");
+        addLine(name, String.format("%.2f ms, p95 %.2f", frames.getMeanMillis(), frames.getPercentileMillis(0.95)));
+        addLine("  tiles", metrics.perFrame(overlay, "drawn") + " / " + metrics.perFrame(overlay, "considered"));
+        addLine("  over budget", metrics.counter(overlay + ".deferred").get() + " frames");
+    }
+
+    private void addLine(String left, String right) {
+        panelComponent.getChildren().add(LineComponent.builder().left(left).right(right).build());
+    }
+}
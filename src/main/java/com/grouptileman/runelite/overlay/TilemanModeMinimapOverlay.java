@@ -28,33 +28,47 @@ package com.grouptileman.runelite.overlay;
 
 import com.grouptileman.GroupTilemanAddon;
 import com.grouptileman.runelite.config.TilemanModeConfig;
+import com.grouptileman.runelite.metrics.TileMetrics;
 import lombok.extern.slf4j.Slf4j;
 import net.runelite.api.Client;
 import net.runelite.api.Perspective;
 import net.runelite.api.Point;
 import net.runelite.api.coords.LocalPoint;
-import net.runelite.api.coords.WorldPoint;
 import net.runelite.client.ui.overlay.*;
 
 import javax.inject.Inject;
 import java.awt.*;
-import java.util.Collection;
-
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Ellipse2D;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.WritableRaster;
+
+/**
+ * Draws the marked tiles of the loaded scene on the minimap. The tiles are drawn once into a
+ * {@link MinimapMask}, and each frame maps that image onto the minimap with the transform the client
+ * currently uses for local coordinates, clipped to the draw distance.
+ */
 @Slf4j
 public class TilemanModeMinimapOverlay extends Overlay {
     private static final int MAX_DRAW_DISTANCE = 16;
-    private static final int TILE_WIDTH = 4;
-    private static final int TILE_HEIGHT = 4;
+    // tiles further than this from the player are off the minimap, as in Perspective.localToMinimap
+    private static final int MINIMAP_RADIUS = 20;
+    // distance of the reference points used to derive the minimap transform, far enough to keep rounding small
+    private static final int REFERENCE_DISTANCE = 32 * Perspective.LOCAL_TILE_SIZE;
 
     private final Client client;
     private final TilemanModeConfig config;
     private final GroupTilemanAddon plugin;
+    private final MinimapMask mask = new MinimapMask();
+    private final FrameBudget budget;
 
     @Inject
     private TilemanModeMinimapOverlay(Client client, TilemanModeConfig config, GroupTilemanAddon plugin) {
         this.client = client;
         this.config = config;
         this.plugin = plugin;
+        this.budget = new FrameBudget(config);
         setPosition(OverlayPosition.DYNAMIC);
         setPriority(OverlayPriority.LOW);
         setLayer(OverlayLayer.ABOVE_WIDGETS);
@@ -66,40 +80,120 @@ public class TilemanModeMinimapOverlay extends Overlay {
             return null;
         }
 
-        final Collection<WorldPoint> points = plugin.getPoints();
-        for (final WorldPoint point : points) {
-            WorldPoint worldPoint = point;
-            if (worldPoint.getPlane() != client.getPlane()) {
-                continue;
-            }
+        if (client.getLocalPlayer() == null) {
+            return null;
+        }
+
+        final long start = System.nanoTime();
+        budget.start(start);
+        final int plane = client.getPlane();
+        final BufferedImage image = mask.get(plugin.getSnapshot(), plane, client.getBaseX(), client.getBaseY(), config.markerColor(), budget);
+        if (image == null) {
+            recordFrame(start, 0, 0);
+            return null;
+        }
 
-            drawOnMinimap(graphics, worldPoint);
+        final LocalPoint playerLocation = client.getLocalPlayer().getLocalLocation();
+        final int[] tiles = countVisibleTiles(image, playerLocation);
+        final AffineTransform transform = localToMinimap(playerLocation);
+        if (transform == null) {
+            recordFrame(start, tiles[0], 0);
+            return null;
+        }
+
+        // same tiles as before: within the draw distance of the player's tile, and on the minimap
+        final int tileX = playerLocation.getSceneX();
+        final int tileY = playerLocation.getSceneY();
+        final int tile = Perspective.LOCAL_TILE_SIZE;
+        final Shape range = transform.createTransformedShape(new Rectangle2D.Double(
+                (tileX - MAX_DRAW_DISTANCE + 1) * tile, (tileY - MAX_DRAW_DISTANCE + 1) * tile,
+                (2 * MAX_DRAW_DISTANCE - 1) * tile, (2 * MAX_DRAW_DISTANCE - 1) * tile));
+        final Shape minimap = transform.createTransformedShape(new Ellipse2D.Double(
+                playerLocation.getX() - MINIMAP_RADIUS * tile, playerLocation.getY() - MINIMAP_RADIUS * tile,
+                2 * MINIMAP_RADIUS * tile, 2 * MINIMAP_RADIUS * tile));
+
+        final Shape originalClip = graphics.getClip();
+        final Object originalInterpolation = graphics.getRenderingHint(RenderingHints.KEY_INTERPOLATION);
+        graphics.clip(range);
+        graphics.clip(minimap);
+        graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR);
+
+        // one image pixel is one tile
+        transform.scale(tile, tile);
+        graphics.drawImage(image, transform, null);
+
+        graphics.setClip(originalClip);
+        if (originalInterpolation != null) {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, originalInterpolation);
         }
 
+        recordFrame(start, tiles[0], tiles[1]);
         return null;
     }
 
-    private void drawOnMinimap(Graphics2D graphics, WorldPoint point) {
-        WorldPoint playerLocation = client.getLocalPlayer().getWorldLocation();
-
-        if (point.distanceTo(playerLocation) >= MAX_DRAW_DISTANCE) {
-            return;
+    /**
+     * Counts the marked tiles of {@code image} within the draw distance of the player's tile, and of those the
+     * ones whose centre is on the minimap, which are the tiles the clipped image actually shows.
+     */
+    private static int[] countVisibleTiles(BufferedImage image, LocalPoint playerLocation) {
+        final WritableRaster raster = image.getRaster();
+        final int tile = Perspective.LOCAL_TILE_SIZE;
+        final long radius = (long) MINIMAP_RADIUS * tile;
+        final int minX = Math.max(0, playerLocation.getSceneX() - MAX_DRAW_DISTANCE + 1);
+        final int maxX = Math.min(image.getWidth() - 1, playerLocation.getSceneX() + MAX_DRAW_DISTANCE - 1);
+        final int minY = Math.max(0, playerLocation.getSceneY() - MAX_DRAW_DISTANCE + 1);
+        final int maxY = Math.min(image.getHeight() - 1, playerLocation.getSceneY() + MAX_DRAW_DISTANCE - 1);
+
+        final int[] tiles = new int[2];
+        for (int y = minY; y <= maxY; y++) {
+            final long dy = (long) y * tile + tile / 2 - playerLocation.getY();
+            for (int x = minX; x <= maxX; x++) {
+                // the alpha band, marked tiles are the only painted pixels
+                if (raster.getSample(x, y, 3) == 0) {
+                    continue;
+                }
+                tiles[0]++;
+                final long dx = (long) x * tile + tile / 2 - playerLocation.getX();
+                if (dx * dx + dy * dy <= radius * radius) {
+                    tiles[1]++;
+                }
+            }
         }
+        return tiles;
+    }
 
-        LocalPoint lp = LocalPoint.fromWorld(client, point);
-        if (lp == null) {
-            return;
+    private void recordFrame(long start, int considered, int drawn) {
+        plugin.getMetrics().recordFrame(TileMetrics.MINIMAP, start, considered, drawn);
+        if (budget.isDeferred()) {
+            plugin.getMetrics().recordDeferred(TileMetrics.MINIMAP);
         }
+    }
 
-        Point posOnMinimap = Perspective.localToMinimap(client, lp);
-        if (posOnMinimap == null) {
-            return;
+    /**
+     * Derives the transform from local to minimap coordinates by projecting the player and two points
+     * offset from them, so it follows the minimap's rotation, zoom and position without reimplementing them.
+     */
+    private AffineTransform localToMinimap(LocalPoint origin) {
+        Point center = Perspective.localToMinimap(client, origin, Integer.MAX_VALUE);
+        Point alongX = Perspective.localToMinimap(client, new LocalPoint(origin.getX() + REFERENCE_DISTANCE, origin.getY()), Integer.MAX_VALUE);
+        Point alongY = Perspective.localToMinimap(client, new LocalPoint(origin.getX(), origin.getY() + REFERENCE_DISTANCE), Integer.MAX_VALUE);
+        if (center == null || alongX == null || alongY == null) {
+            return null;
         }
 
-        OverlayUtil.renderMinimapRect(client, graphics, posOnMinimap, TILE_WIDTH, TILE_HEIGHT, getTileColor());
+        double m00 = (alongX.getX() - center.getX()) / (double) REFERENCE_DISTANCE;
+        double m10 = (alongX.getY() - center.getY()) / (double) REFERENCE_DISTANCE;
+        double m01 = (alongY.getX() - center.getX()) / (double) REFERENCE_DISTANCE;
+        double m11 = (alongY.getY() - center.getY()) / (double) REFERENCE_DISTANCE;
+        return new AffineTransform(m00, m10, m01, m11,
+                center.getX() - m00 * origin.getX() - m01 * origin.getY(),
+                center.getY() - m10 * origin.getX() - m11 * origin.getY());
     }
 
-    private Color getTileColor() {
-        return config.markerColor();
+    /**
+     * Drops the cached minimap masks.
+     */
+    public void clearCache() {
+        mask.clear();
     }
-}
\ No newline at end of file
+}
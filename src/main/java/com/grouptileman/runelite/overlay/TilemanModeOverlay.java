@@ -30,32 +30,65 @@ package com.grouptileman.runelite.overlay;
 
 import com.grouptileman.GroupTilemanAddon;
 import com.grouptileman.runelite.config.TilemanModeConfig;
+import com.grouptileman.runelite.metrics.TileMetrics;
+import com.grouptileman.runelite.tiles.TileOutline;
+import com.grouptileman.runelite.tiles.TileSnapshot;
 import lombok.extern.slf4j.Slf4j;
 import net.runelite.api.Client;
 import net.runelite.api.Perspective;
+import net.runelite.api.Point;
 import net.runelite.api.coords.LocalPoint;
 import net.runelite.api.coords.WorldPoint;
 import net.runelite.client.ui.overlay.*;
 
 import javax.inject.Inject;
 import java.awt.*;
-import java.util.Collection;
-
+import java.awt.geom.Path2D;
+import java.util.Arrays;
+
+/**
+ * Draws the loaded tiles around the player as merged outlines: the boundary of the marked area is
+ * traced once per tile load or player move and re-projected only when the camera moves, so a frame is
+ * a single fill and stroke. Traces that take longer than the frame budget are spaced out so their cost
+ * averages out to the budget, drawing the previous outline in between.
+ */
 @Slf4j
 public class TilemanModeOverlay extends Overlay {
     private static final int MAX_DRAW_DISTANCE = 32;
+    private static final Color FILL_COLOR = new Color(0, 0, 0, 50);
+    private static final Stroke OUTLINE_STROKE = new BasicStroke(2);
+    private static final int CAMERA_STATE_SIZE = 10;
+    // tiles drawn one by one between checks of the frame budget
+    private static final int TILES_PER_BUDGET_CHECK = 16;
 
     private final Client client;
     private final GroupTilemanAddon plugin;
+    private final FrameBudget budget;
 
     @Inject
     private TilemanModeConfig config;
 
+    // outline traced for outlineVersion, outlinePlane and the player at outlineX, outlineY
+    private TileOutline outline;
+    private long outlineVersion = -1;
+    private int outlinePlane;
+    private int outlineX;
+    private int outlineY;
+    // time the last trace ran over the budget, paid back one budget per frame before the outline is traced again
+    private long traceDebt;
+
+    // outline projected with the camera state it was projected for, null when a corner failed to project
+    private Path2D projected;
+    private TileOutline projectedOutline;
+    private final int[] projectedCamera = new int[CAMERA_STATE_SIZE];
+    private final int[] camera = new int[CAMERA_STATE_SIZE];
+
     @Inject
     private TilemanModeOverlay(Client client, TilemanModeConfig config, GroupTilemanAddon plugin) {
         this.client = client;
         this.plugin = plugin;
         this.config = config;
+        this.budget = new FrameBudget(config);
         setPosition(OverlayPosition.DYNAMIC);
         setPriority(OverlayPriority.LOW);
         setLayer(OverlayLayer.ABOVE_SCENE);
@@ -63,39 +96,138 @@ public class TilemanModeOverlay extends Overlay {
 
     @Override
     public Dimension render(Graphics2D graphics) {
-        final Collection<WorldPoint> points = plugin.getPoints();
-        for (final WorldPoint point : points) {
-            if (point.getPlane() != client.getPlane()) {
-                continue;
-            }
+        if (client.getLocalPlayer() == null) {
+            return null;
+        }
+
+        final long start = System.nanoTime();
+        budget.start(start);
+        traceDebt = Math.max(0, traceDebt - budget.getNanos());
+        final TileSnapshot snapshot = plugin.getSnapshot();
+        final WorldPoint playerLocation = client.getLocalPlayer().getWorldLocation();
+        final int plane = client.getPlane();
+        final boolean stale = outlineVersion != snapshot.getVersion() || outlineX != playerLocation.getX() || outlineY != playerLocation.getY();
+        if (outline == null || outlinePlane != plane || (stale && traceDebt == 0)) {
+            outline = TileOutline.trace(snapshot.getPoints(), plane, playerLocation.getX(), playerLocation.getY(), MAX_DRAW_DISTANCE);
+            outlineVersion = snapshot.getVersion();
+            outlinePlane = plane;
+            outlineX = playerLocation.getX();
+            outlineY = playerLocation.getY();
+            traceDebt = Math.max(0, System.nanoTime() - start - budget.getNanos());
+        } else if (stale) {
+            budget.defer();
+        }
+
+        if (outline.isEmpty()) {
+            recordFrame(start, 0, 0);
+            return null;
+        }
 
-            drawTile(graphics, point);
+        Path2D path = project(outline, plane);
+        int drawn;
+        if (path != null) {
+            graphics.setColor(config.markerColor());
+            final Stroke originalStroke = graphics.getStroke();
+            graphics.setStroke(OUTLINE_STROKE);
+            graphics.draw(path);
+            graphics.setColor(FILL_COLOR);
+            graphics.fill(path);
+            graphics.setStroke(originalStroke);
+            drawn = outline.getTileCount();
+        } else {
+            // part of the outline is behind the camera, fall back to the tiles that can be projected, as many as the budget allows
+            // drawn, visited until the budget ran out and -1 after
+            final int[] tiles = new int[2];
+            snapshot.getPoints().forEachInRange(plane, playerLocation.getX(), playerLocation.getY(), MAX_DRAW_DISTANCE, (x, y, z) -> {
+                if (tiles[1] < 0) {
+                    return;
+                }
+                if (++tiles[1] % TILES_PER_BUDGET_CHECK == 0 && budget.isExhausted()) {
+                    budget.defer();
+                    tiles[1] = -1;
+                    return;
+                }
+                if (drawTile(graphics, x, y)) {
+                    tiles[0]++;
+                }
+            });
+            drawn = tiles[0];
         }
 
+        recordFrame(start, outline.getTileCount(), drawn);
         return null;
     }
 
-    private void drawTile(Graphics2D graphics, WorldPoint point) {
-        WorldPoint playerLocation = client.getLocalPlayer().getWorldLocation();
+    private void recordFrame(long start, int considered, int drawn) {
+        plugin.getMetrics().recordFrame(TileMetrics.SCENE, start, considered, drawn);
+        if (budget.isDeferred()) {
+            plugin.getMetrics().recordDeferred(TileMetrics.SCENE);
+        }
+    }
+
+    /**
+     * Returns the outline in canvas coordinates, projecting it again only if the outline or camera changed.
+     */
+    private Path2D project(TileOutline outline, int plane) {
+        camera[0] = client.getCameraX();
+        camera[1] = client.getCameraY();
+        camera[2] = client.getCameraZ();
+        camera[3] = client.getCameraPitch();
+        camera[4] = client.getCameraYaw();
+        camera[5] = client.getScale();
+        camera[6] = client.getViewportWidth();
+        camera[7] = client.getViewportHeight();
+        camera[8] = client.getBaseX();
+        camera[9] = client.getBaseY();
+        if (outline == projectedOutline && Arrays.equals(camera, projectedCamera)) {
+            return projected;
+        }
 
-        if (point.distanceTo(playerLocation) >= MAX_DRAW_DISTANCE) {
-            return;
+        projectedOutline = outline;
+        System.arraycopy(camera, 0, projectedCamera, 0, CAMERA_STATE_SIZE);
+        projected = new Path2D.Float(Path2D.WIND_EVEN_ODD, outline.getVertexCount() + outline.getLoops().size());
+        for (int[] loop : outline.getLoops()) {
+            for (int i = 0; i < loop.length; i += 2) {
+                Point point = projectCorner(loop[i], loop[i + 1], plane);
+                if (point == null) {
+                    projected = null;
+                    return null;
+                }
+                if (i == 0) {
+                    projected.moveTo(point.getX(), point.getY());
+                } else {
+                    projected.lineTo(point.getX(), point.getY());
+                }
+            }
+            projected.closePath();
         }
+        return projected;
+    }
+
+    private Point projectCorner(int worldX, int worldY, int plane) {
+        LocalPoint corner = new LocalPoint(
+                (worldX - client.getBaseX()) << Perspective.LOCAL_COORD_BITS,
+                (worldY - client.getBaseY()) << Perspective.LOCAL_COORD_BITS);
+        int height = Perspective.getTileHeight(client, corner, plane);
+        return Perspective.localToCanvas(client, corner.getX(), corner.getY(), height);
+    }
 
-        LocalPoint lp = LocalPoint.fromWorld(client, point);
+    private boolean drawTile(Graphics2D graphics, int x, int y) {
+        LocalPoint lp = LocalPoint.fromWorld(client, x, y);
         if (lp == null) {
-            return;
+            return false;
         }
 
         Polygon poly = Perspective.getCanvasTilePoly(client, lp);
         if (poly == null) {
-            return;
+            return false;
         }
 
         OverlayUtil.renderPolygon(graphics, poly, getTileColor());
+        return true;
     }
 
     private Color getTileColor() {
         return config.markerColor();
     }
-}
\ No newline at end of file
+}
@@ -31,8 +31,10 @@ import java.awt.*;
 import javax.inject.Inject;
 
 import com.grouptileman.GroupTilemanAddon;
-import com.grouptileman.runelite.config.Tile;
 import com.grouptileman.runelite.config.TilemanModeConfig;
+import com.grouptileman.runelite.metrics.TileMetrics;
+import com.grouptileman.runelite.tiles.GroupRegion;
+import com.grouptileman.runelite.tiles.RegionTileSet;
 import lombok.extern.slf4j.Slf4j;
 import net.runelite.api.Client;
 import net.runelite.api.Point;
@@ -49,16 +51,27 @@ public class TilemanModeWorldMapOverlay extends Overlay {
     private static final int REGION_SIZE = 1 << 6;
     // Bitmask to return first coordinate in region
     private static final int REGION_TRUNCATE = ~((1 << 6) - 1);
+    // below this zoom single tiles are sub-pixel, so coverage of chunks or regions is drawn instead
+    private static final float DENSITY_PIXELS_PER_TILE = 1f;
+    // smallest chunk cell worth drawing, below it whole regions are drawn as one cell
+    private static final float MIN_CHUNK_PIXELS = 2f;
+    private static final int CHUNK_TILES = RegionTileSet.CHUNK_SIZE * RegionTileSet.CHUNK_SIZE;
+    private static final int REGION_TILES = REGION_SIZE * REGION_SIZE;
 
     private final Client client;
     private final TilemanModeConfig config;
     private final GroupTilemanAddon plugin;
+    private final WorldMapRasterCache rasterCache = new WorldMapRasterCache();
+    private final FrameBudget budget;
+    // marker colour shaded by coverage, index n for n of 64 tiles covered
+    private Color[] densityColors;
 
     @Inject
     private TilemanModeWorldMapOverlay(Client client, TilemanModeConfig config, GroupTilemanAddon plugin) {
         this.client = client;
         this.config = config;
         this.plugin = plugin;
+        this.budget = new FrameBudget(config);
         setPosition(OverlayPosition.DYNAMIC);
         setPriority(OverlayPriority.HIGH);
         setLayer(OverlayLayer.ALWAYS_ON_TOP);
@@ -70,12 +83,20 @@ public class TilemanModeWorldMapOverlay extends Overlay {
             return null;
         }
 
-        drawOnWorldMap(graphics);
+        final long start = System.nanoTime();
+        budget.start(start);
+        // considered, drawn
+        final int[] tiles = new int[2];
+        drawOnWorldMap(graphics, tiles);
 
+        plugin.getMetrics().recordFrame(TileMetrics.WORLD_MAP, start, tiles[0], tiles[1]);
+        if (budget.isDeferred()) {
+            plugin.getMetrics().recordDeferred(TileMetrics.WORLD_MAP);
+        }
         return null;
     }
 
-    private void drawOnWorldMap(Graphics2D graphics) {
+    private void drawOnWorldMap(Graphics2D graphics, int[] tiles) {
         RenderOverview ro = client.getRenderOverview();
         Widget map = client.getWidget(WidgetInfo.WORLD_MAP_VIEW);
         Float pixelsPerTile = ro.getWorldMapZoom();
@@ -97,29 +118,154 @@ public class TilemanModeWorldMapOverlay extends Overlay {
         int xRegionMax = ((worldMapPosition.getX() + widthInTiles / 2) & REGION_TRUNCATE) + REGION_SIZE;
         int yRegionMin = (yTileMin & REGION_TRUNCATE);
         int yRegionMax = ((worldMapPosition.getY() + heightInTiles / 2) & REGION_TRUNCATE) + REGION_SIZE;
+
+        final int plane = client.getPlane();
+        final Color color = config.markerColor();
+        if (densityColors == null || densityColors[CHUNK_TILES].getRGB() != color.getRGB()) {
+            densityColors = densityColors(color);
+        }
+        if (pixelsPerTile < DENSITY_PIXELS_PER_TILE) {
+            drawDensity(graphics, tiles, worldMapRect, worldMapPosition, widthInTiles, yTileMin,
+                    xRegionMin, xRegionMax, yRegionMin, yRegionMax, pixelsPerTile, plane);
+            return;
+        }
+
         int regionPixelSize = (int) Math.ceil(REGION_SIZE * pixelsPerTile);
 
+        int size = (regionPixelSize / (64 - Math.round(48f * ((8f - pixelsPerTile) / 7f))));
+        int tileSize = regionPixelSize / 64;
+        if (size <= 0) {
+            return;
+        }
+
+        for (int x = xRegionMin; x < xRegionMax; x += REGION_SIZE) {
+            for (int y = yRegionMin; y < yRegionMax; y += REGION_SIZE) {
+                int regionId = ((x >> 6) << 8) | (y >> 6);
+                // tiles owned by several members are only drawn once
+                RegionTileSet region = loadedUnion(regionId);
+                if (region == null || region.isEmpty()) {
+                    continue;
+                }
+                tiles[0] += region.size();
+
+                int yTileOffset = -(yTileMin - y) + 2; // Added offset of 2 as tiles were misaligned
+                int xTileOffset = x + widthInTiles / 2 - worldMapPosition.getX();
+                int xPos = ((int) (xTileOffset * pixelsPerTile)) + (int) worldMapRect.getX();
+                int yPos = (worldMapRect.height - (int) (yTileOffset * pixelsPerTile)) + (int) worldMapRect.getY();
+
+                WorldMapRasterCache.Raster raster = rasterCache.getIfCurrent(regionId, plane, tileSize, size, color, region);
+                if (raster == null) {
+                    if (budget.isExhausted()) {
+                        // rasterized by a later frame, until then the region's coverage stands in
+                        budget.defer();
+                        drawChunks(graphics, tiles, region, plane, xPos, yPos, pixelsPerTile);
+                        continue;
+                    }
+                    raster = rasterCache.get(regionId, plane, tileSize, size, color, region);
+                }
+                if (raster.getImage() == null) {
+                    continue;
+                }
+                tiles[1] += raster.getTileCount();
+
+                // tile (0, 63) is the image's top left corner
+                graphics.drawImage(raster.getImage(), xPos, yPos - (REGION_SIZE - 2) * tileSize, null);
+            }
+        }
+    }
+
+    /**
+     * Zoomed out drawing: each 8x8 chunk, or each region once chunks get too small, is filled as one cell shaded
+     * by how many of its tiles are marked. Only the sets' chunk counts are read, so a frame costs the same per
+     * region however many tiles it holds.
+     */
+    private void drawDensity(Graphics2D graphics, int[] tiles, Rectangle worldMapRect, Point worldMapPosition, int widthInTiles,
+                             int yTileMin, int xRegionMin, int xRegionMax, int yRegionMin, int yRegionMax,
+                             float pixelsPerTile, int plane) {
+        final boolean chunks = RegionTileSet.CHUNK_SIZE * pixelsPerTile >= MIN_CHUNK_PIXELS;
         for (int x = xRegionMin; x < xRegionMax; x += REGION_SIZE) {
             for (int y = yRegionMin; y < yRegionMax; y += REGION_SIZE) {
                 int regionId = ((x >> 6) << 8) | (y >> 6);
-                for (final String player: config.groupPlayerNames().split(",")) {
-                    for (final Tile tile : plugin.getTiles(player, regionId)) {
-                        if (tile.getZ() != client.getPlane()) {
-                            continue;
-                        }
-                        int yTileOffset = -(yTileMin - y) + 2; // Added offset of 2 as tiles were misaligned
-                        int xTileOffset = x + widthInTiles / 2 - worldMapPosition.getX();
-                        int xPos = ((int) (xTileOffset * pixelsPerTile)) + (int) worldMapRect.getX();
-                        int yPos = (worldMapRect.height - (int) (yTileOffset * pixelsPerTile)) + (int) worldMapRect.getY();
-                        int size = (regionPixelSize / (64 - Math.round(48f * ((8f - pixelsPerTile) / 7f))));
-                        int tileSize = regionPixelSize / 64;
-
-                        graphics.setColor(new Color(config.markerColor().getRGB()));
-                        graphics.fillRect(xPos + (tile.getRegionX() * tileSize), yPos - (tile.getRegionY() * tileSize) + tileSize, size - 1, size - 1);
-                        graphics.drawRect(xPos + (tile.getRegionX() * tileSize), yPos - (tile.getRegionY() * tileSize) + tileSize, size - 1, size - 1);
+                RegionTileSet region = loadedUnion(regionId);
+                if (region == null || region.isEmpty()) {
+                    continue;
+                }
+                tiles[0] += region.size();
+
+                // same placement as the tile images, tile (0, 0) of the region spans down from yPos + pixelsPerTile
+                float xPos = (x + widthInTiles / 2 - worldMapPosition.getX()) * pixelsPerTile + (float) worldMapRect.getX();
+                float yPos = worldMapRect.height - (y - yTileMin + 2) * pixelsPerTile + (float) worldMapRect.getY();
+                if (!chunks) {
+                    int count = region.size(plane);
+                    if (count > 0) {
+                        fillCell(graphics, densityColors[(count * CHUNK_TILES + REGION_TILES - 1) / REGION_TILES], xPos, yPos, 0, 0, REGION_SIZE, pixelsPerTile);
+                        tiles[1] += count;
                     }
+                    continue;
                 }
+
+                drawChunks(graphics, tiles, region, plane, xPos, yPos, pixelsPerTile);
             }
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Returns the group's tiles in a region, or null when they aren't loaded yet. Loading reads the store, so
+     * it is left to the executor and the region is drawn by a later frame.
+     */
+    private RegionTileSet loadedUnion(int regionId) {
+        GroupRegion region = plugin.getLoadedGroupRegion(regionId);
+        if (region == null) {
+            budget.defer();
+            return null;
+        }
+        return region.getUnion();
+    }
+
+    private void drawChunks(Graphics2D graphics, int[] tiles, RegionTileSet region, int plane, float xPos, float yPos, float pixelsPerTile) {
+        final int step = RegionTileSet.CHUNK_SIZE;
+        for (int chunkY = 0; chunkY < RegionTileSet.CHUNKS; chunkY++) {
+            for (int chunkX = 0; chunkX < RegionTileSet.CHUNKS; chunkX++) {
+                int count = region.chunkSize(chunkX, chunkY, plane);
+                if (count > 0) {
+                    fillCell(graphics, densityColors[count], xPos, yPos, chunkX * step, chunkY * step, step, pixelsPerTile);
+                    tiles[1] += count;
+                }
+            }
+        }
+    }
+
+    /**
+     * Fills the {@code size} tiles wide cell whose bottom left tile is {@code (x, y)} of the region drawn at
+     * {@code (xPos, yPos)}, rounding both edges so neighbouring cells neither overlap nor leave gaps.
+     */
+    private static void fillCell(Graphics2D graphics, Color color, float xPos, float yPos, int x, int y, int size, float pixelsPerTile) {
+        int left = Math.round(xPos + x * pixelsPerTile);
+        int right = Math.round(xPos + (x + size) * pixelsPerTile);
+        int top = Math.round(yPos + (2 - y - size) * pixelsPerTile);
+        int bottom = Math.round(yPos + (2 - y) * pixelsPerTile);
+        graphics.setColor(color);
+        graphics.fillRect(left, top, Math.max(1, right - left), Math.max(1, bottom - top));
+    }
+
+    /**
+     * Returns the marker colour for each coverage of a chunk, from faint for a single tile to the marker's own
+     * alpha when all 64 are marked.
+     */
+    private static Color[] densityColors(Color color) {
+        final Color[] colors = new Color[CHUNK_TILES + 1];
+        for (int count = 1; count <= CHUNK_TILES; count++) {
+            int alpha = Math.round(color.getAlpha() * (0.25f + 0.75f * count / CHUNK_TILES));
+            colors[count] = new Color(color.getRed(), color.getGreen(), color.getBlue(), alpha);
+        }
+        colors[0] = colors[1];
+        return colors;
+    }
+
+    /**
+     * Drops the cached world map images.
+     */
+    public void clearCache() {
+        rasterCache.clear();
+    }
+}
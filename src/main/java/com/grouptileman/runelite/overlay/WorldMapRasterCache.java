@@ -0,0 +1,139 @@
+package com.grouptileman.runelite.overlay;
+
+import com.grouptileman.runelite.tiles.RegionTileSet;
+import com.grouptileman.runelite.tiles.TileRectangles;
+import lombok.Value;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Pre-rendered world map tiles of each (region, plane, zoom) so a frame only blits one image per region.
+ * An image is redrawn when the group's tiles of the region or the marker colour change, and the least
+ * recently drawn images are dropped once the cache holds more than {@link #MAX_CACHED_PIXELS} or
+ * {@link #MAX_ENTRIES} entries, counting the entries of planes without tiles.
+ */
+class WorldMapRasterCache {
+    // 32MB of ARGB pixels, around thirty fully zoomed in regions
+    private static final long MAX_CACHED_PIXELS = 8L << 20;
+    // bounds the entries of empty planes, which hold no pixels, when panning across the whole map at several zooms
+    private static final int MAX_ENTRIES = 4096;
+
+    private final Map<Key, Raster> rasters = new LinkedHashMap<>(16, 0.75f, true);
+    private long cachedPixels;
+
+    @Value
+    private static class Key {
+        int regionId;
+        int plane;
+        // spacing and size of the drawn tiles, in pixels
+        int tileSize;
+        int size;
+    }
+
+    @Value
+    static class Raster {
+        BufferedImage image;
+        // tiles the image was drawn from, compared by identity
+        RegionTileSet source;
+        int rgb;
+        int tileCount;
+    }
+
+    /**
+     * Returns the image of the tiles of {@code source} on {@code plane}, drawing it if needed. Tile {@code (x, y)}
+     * is drawn at {@code (x * tileSize, (63 - y) * tileSize)} as a {@code size} pixel square. The image is null
+     * when there are no tiles on the plane.
+     */
+    Raster get(int regionId, int plane, int tileSize, int size, Color color, RegionTileSet source) {
+        Raster raster = getIfCurrent(regionId, plane, tileSize, size, color, source);
+        if (raster != null) {
+            return raster;
+        }
+
+        final Key key = new Key(regionId, plane, tileSize, size);
+        raster = rasters.get(key);
+        if (raster != null) {
+            remove(key, raster);
+        }
+        raster = draw(plane, tileSize, size, color, source);
+        rasters.put(key, raster);
+        cachedPixels += pixels(raster);
+        evict();
+        return raster;
+    }
+
+    /**
+     * Returns the cached image like {@link #get}, or null instead of drawing it when it is missing or stale.
+     */
+    Raster getIfCurrent(int regionId, int plane, int tileSize, int size, Color color, RegionTileSet source) {
+        final Raster raster = rasters.get(new Key(regionId, plane, tileSize, size));
+        return raster != null && raster.getRgb() == color.getRGB() && raster.getSource() == source ? raster : null;
+    }
+
+    void clear() {
+        rasters.clear();
+        cachedPixels = 0;
+    }
+
+    private static Raster draw(int plane, int tileSize, int size, Color color, RegionTileSet source) {
+        int tileCount = 0;
+        for (int y = 0; y < RegionTileSet.REGION_SIZE; y++) {
+            tileCount += Long.bitCount(source.row(plane, y));
+        }
+
+        // nothing on this plane, remember that without holding an image
+        if (tileCount == 0) {
+            return new Raster(null, source, color.getRGB(), 0);
+        }
+
+        final int extent = (RegionTileSet.REGION_SIZE - 1) * tileSize + size;
+        final BufferedImage image = new BufferedImage(extent, extent, BufferedImage.TYPE_INT_ARGB);
+        final Graphics2D graphics = image.createGraphics();
+        // tiles have always been drawn opaque on the world map, whatever the marker's alpha
+        graphics.setColor(new Color(color.getRGB()));
+        if (size >= tileSize) {
+            // neighbouring tiles touch or overlap, so whole rectangles cover exactly the same pixels
+            for (int rectangle : source.rectangles(plane)) {
+                int top = TileRectangles.y(rectangle) + TileRectangles.height(rectangle) - 1;
+                graphics.fillRect(TileRectangles.x(rectangle) * tileSize, (RegionTileSet.REGION_SIZE - 1 - top) * tileSize,
+                        (TileRectangles.width(rectangle) - 1) * tileSize + size, (TileRectangles.height(rectangle) - 1) * tileSize + size);
+            }
+        } else {
+            for (int y = 0; y < RegionTileSet.REGION_SIZE; y++) {
+                final int pixelY = (RegionTileSet.REGION_SIZE - 1 - y) * tileSize;
+                long bits = source.row(plane, y);
+                while (bits != 0) {
+                    graphics.fillRect(Long.numberOfTrailingZeros(bits) * tileSize, pixelY, size, size);
+                    bits &= bits - 1;
+                }
+            }
+        }
+        graphics.dispose();
+
+        return new Raster(image, source, color.getRGB(), tileCount);
+    }
+
+    private void evict() {
+        Iterator<Map.Entry<Key, Raster>> it = rasters.entrySet().iterator();
+        // never evict the image just drawn, it is the most recently used entry
+        while ((cachedPixels > MAX_CACHED_PIXELS || rasters.size() > MAX_ENTRIES) && rasters.size() > 1) {
+            Map.Entry<Key, Raster> eldest = it.next();
+            cachedPixels -= pixels(eldest.getValue());
+            it.remove();
+        }
+    }
+
+    private void remove(Key key, Raster raster) {
+        rasters.remove(key);
+        cachedPixels -= pixels(raster);
+    }
+
+    private static long pixels(Raster raster) {
+        BufferedImage image = raster.getImage();
+        return image == null ? 0 : (long) image.getWidth() * image.getHeight();
+    }
+}
@@ -27,20 +27,36 @@ package com.grouptileman.runelite.share;
 
 import com.google.common.base.Strings;
 import com.google.gson.Gson;
-import com.google.gson.JsonSyntaxException;
-import com.google.gson.reflect.TypeToken;
 
 import java.awt.Toolkit;
 import java.awt.datatransfer.DataFlavor;
 import java.awt.datatransfer.StringSelection;
 import java.awt.datatransfer.UnsupportedFlavorException;
+import java.io.File;
 import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 import javax.inject.Inject;
+import javax.swing.JFileChooser;
+import javax.swing.SwingUtilities;
+import javax.swing.filechooser.FileNameExtensionFilter;
 
 import com.grouptileman.GroupTilemanAddon;
-import com.grouptileman.runelite.config.Tile;
+import com.grouptileman.runelite.config.ShareFormat;
+import com.grouptileman.runelite.config.TilemanModeConfig;
 import com.grouptileman.runelite.config.TilesFromUser;
+import com.grouptileman.runelite.share.codec.ShareCodec;
+import com.grouptileman.runelite.share.codec.ShareCodecs;
+import com.grouptileman.runelite.share.codec.TileDeltaCodec;
+import com.grouptileman.runelite.tiles.RegionTileSet;
+import com.grouptileman.runelite.tiles.TileLoader;
 import lombok.extern.slf4j.Slf4j;
 import net.runelite.api.ChatMessageType;
 import net.runelite.api.Client;
@@ -59,7 +75,17 @@ import net.runelite.client.menus.WidgetMenuOption;
 public
 class GroundMarkerSharingManager {
     private static final WidgetMenuOption EXPORT_MARKERS_OPTION = new WidgetMenuOption("Export", "Tileman Markers", MINIMAP_WORLDMAP_OPTIONS);
+    private static final WidgetMenuOption EXPORT_CHANGES_OPTION = new WidgetMenuOption("Export changes", "Tileman Markers", MINIMAP_WORLDMAP_OPTIONS);
     private static final WidgetMenuOption IMPORT_MARKERS_OPTION = new WidgetMenuOption("Import", "Group Tileman Markers", MINIMAP_WORLDMAP_OPTIONS);
+    private static final WidgetMenuOption EXPORT_FILE_OPTION = new WidgetMenuOption("Export to file", "Group Tileman Markers", MINIMAP_WORLDMAP_OPTIONS);
+    private static final WidgetMenuOption IMPORT_FILE_OPTION = new WidgetMenuOption("Import from file", "Group Tileman Markers", MINIMAP_WORLDMAP_OPTIONS);
+    // hashes of the stored region payloads as of the last export, the baseline for exporting changes
+    private static final String EXPORT_BASELINE_KEY = "exportBaseline";
+    // <path>:<size>:<last modified>|<parts> of the bundle import that last stopped part way
+    private static final String BUNDLE_IMPORT_PROGRESS_KEY = "bundleImportProgress";
+    private static final int IMPORT_PROGRESS_INTERVAL = 250;
+    // clipboard exports longer than this get a hint to export to a file instead
+    private static final int LARGE_EXPORT_CHARS = 1 << 20;
 
     private final GroupTilemanAddon plugin;
     private final Client client;
@@ -71,6 +97,18 @@ class GroundMarkerSharingManager {
     @Inject
     private ConfigManager configManager;
 
+    @Inject
+    private TilemanModeConfig config;
+
+    @Inject
+    private ShareCodecs shareCodecs;
+
+    @Inject
+    private ScheduledExecutorService executor;
+
+    @Inject
+    private TileLoader tileLoader;
+
     @Inject
     private GroundMarkerSharingManager(GroupTilemanAddon plugin, Client client, MenuManager menuManager,
                                        ChatMessageManager chatMessageManager, ChatboxPanelManager chatboxPanelManager, Gson gson) {
@@ -84,34 +122,94 @@ class GroundMarkerSharingManager {
 
     public void addImportExportMenuOptions() {
         menuManager.addManagedCustomMenu(EXPORT_MARKERS_OPTION, this::exportTilesFromPlayer);
+        menuManager.addManagedCustomMenu(EXPORT_CHANGES_OPTION, this::exportChangedTilesFromPlayer);
         menuManager.addManagedCustomMenu(IMPORT_MARKERS_OPTION, this::importTilesFromPlayer);
+        menuManager.addManagedCustomMenu(EXPORT_FILE_OPTION, this::exportBundleToFile);
+        menuManager.addManagedCustomMenu(IMPORT_FILE_OPTION, this::importBundleFromFile);
     }
 
     public void removeMenuOptions() {
         menuManager.removeManagedCustomMenu(EXPORT_MARKERS_OPTION);
+        menuManager.removeManagedCustomMenu(EXPORT_CHANGES_OPTION);
         menuManager.removeManagedCustomMenu(IMPORT_MARKERS_OPTION);
+        menuManager.removeManagedCustomMenu(EXPORT_FILE_OPTION);
+        menuManager.removeManagedCustomMenu(IMPORT_FILE_OPTION);
     }
 
     private void exportTilesFromPlayer(MenuEntry menuEntry) {
-        List<String> keys = configManager.getConfigurationKeys(GroupTilemanAddon.TILEMAN_CONFIG_GROUP);
+        final String playerName = plugin.getPlayerName();
+        executor.execute(() -> exportTiles(playerName, false));
+    }
 
-        TreeMap<String, List<Tile>> regionTiles = new TreeMap<>();
+    private void exportChangedTilesFromPlayer(MenuEntry menuEntry) {
+        final String playerName = plugin.getPlayerName();
+        executor.execute(() -> exportTiles(playerName, true));
+    }
+
+    /**
+     * Exports the player's tiles, or with {@code changesOnly} just the regions whose stored payload differs
+     * from the previous export. Regions emptied since then are exported empty so importers clear them.
+     * <p>
+     * The stored payloads are streamed into the export as they are, see {@link ShareCodec#encode(String, SortedMap, boolean, Writer)};
+     * nothing is decoded unless the format or validation needs it.
+     */
+    private void exportTiles(String playerName, boolean changesOnly) {
+        final long start = System.nanoTime();
+        final RegionHashes baseline = RegionHashes.parse(configManager.getConfiguration(GroupTilemanAddon.CONFIG_GROUP, EXPORT_BASELINE_KEY));
+        final RegionHashes exported = new RegionHashes();
+        final SortedMap<Integer, String> regions = new TreeMap<>();
+        int payloadLength = 0;
+
+        for (int regionId : OwnTiles.regionIds(configManager)) {
+            final String payload = OwnTiles.payload(configManager, regionId);
+            final long hash = RegionHashes.hash(payload);
+            exported.put(regionId, hash);
+            if (changesOnly && Objects.equals(baseline.get(regionId), hash)) {
+                continue;
+            }
+            regions.put(regionId, payload);
+            payloadLength += payload == null ? 0 : payload.length();
+        }
+
+        if (changesOnly) {
+            for (int regionId : baseline.regionIds()) {
+                if (exported.get(regionId) == null && baseline.get(regionId) != 0) {
+                    regions.put(regionId, null);
+                    exported.put(regionId, 0);
+                }
+            }
 
-        for (String key : keys) {
-            if (key.startsWith(GroupTilemanAddon.TILEMAN_CONFIG_GROUP + "." + GroupTilemanAddon.REGION_PREFIX)) {
-                key = key.replace(GroupTilemanAddon.TILEMAN_CONFIG_GROUP + ".","");
-                regionTiles.put(key, gson.fromJson(configManager.getConfiguration(GroupTilemanAddon.TILEMAN_CONFIG_GROUP, key), new TypeToken<List<Tile>>() {
-                }.getType()));
+            if (regions.isEmpty()) {
+                sendChatMessage("No tiles changed since your last export.");
+                return;
             }
         }
 
-        final String exportDump = gson.toJson(new TilesFromUser(plugin.getPlayerName(), regionTiles));
+        final ShareFormat format = config.exportFormat();
+        // JSON exports are about as long as the stored payloads, compact ones far shorter
+        final StringWriter out = new StringWriter(format == ShareFormat.JSON ? payloadLength + regions.size() * 16 + 64 : 1024);
+        try {
+            shareCodecs.forFormat(format).encode(playerName, regions, config.validateExport(), out);
+        } catch (IOException e) {
+            // StringWriter doesn't throw
+            throw new UncheckedIOException(e);
+        }
+        final String exportDump = out.toString();
 
-        log.debug("Exported ground markers: {}", exportDump);
+        log.debug("Exported {} regions as {} characters of {} in {}ms", regions.size(), exportDump.length(), format,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
 
         Toolkit.getDefaultToolkit()
                 .getSystemClipboard()
                 .setContents(new StringSelection(exportDump), null);
+
+        configManager.setConfiguration(GroupTilemanAddon.CONFIG_GROUP, EXPORT_BASELINE_KEY, exported.toString());
+        if (changesOnly) {
+            sendChatMessage("Exported " + regions.size() + " changed regions.");
+        }
+        if (exportDump.length() > LARGE_EXPORT_CHARS) {
+            sendChatMessage("That export is large, Export to file handles big groups better.");
+        }
     }
 
     private void importTilesFromPlayer(MenuEntry menuEntry) {
@@ -132,15 +230,196 @@ class GroundMarkerSharingManager {
             sendChatMessage("You do not have any ground markers copied in your clipboard.");
             return;
         }
-        try {
-            TilesFromUser tilesFromUser = gson.fromJson(clipboardText, TilesFromUser.class);
+        final ShareCodec codec = shareCodecs.detect(clipboardText);
+        if (codec == null) {
+            sendChatMessage("You do not have any ground markers copied in your clipboard.");
+            return;
+        }
+
+        executor.execute(() -> importTiles(codec, clipboardText));
+    }
+
+    /**
+     * Decodes and stores one region at a time, so the whole payload is never bound into a {@link TilesFromUser}.
+     * Unchanged regions are skipped and the loaded tiles are reloaded once at the end, see {@link RegionImport}.
+     */
+    private void importTiles(ShareCodec codec, String payload) {
+        final String[] playerName = {null};
+        final int[] regions = {0};
+        final int[] unchanged = {0};
+        final int[] tiles = {0};
+        try (RegionImport regionImport = new RegionImport(configManager, tileLoader)) {
+            codec.decode(payload, (player, region) -> {
+                playerName[0] = player;
+                regions[0]++;
+                if (regions[0] % IMPORT_PROGRESS_INTERVAL == 0) {
+                    sendChatMessage("Imported " + regions[0] + " regions from " + player + "...");
+                }
+
+                if (regionImport.store(player, region)) {
+                    tiles[0] += region.size();
+                } else {
+                    unchanged[0]++;
+                }
+            });
+        } catch (IllegalArgumentException e) {
+            log.debug("Malformed tiles for clipboard import", e);
+            sendChatMessage(regions[0] == 0
+                    ? "You do not have any ground markers copied in your clipboard."
+                    : "Import stopped after " + regions[0] + " regions, the rest of the tiles are malformed.");
+            return;
+        } catch (UncheckedIOException e) {
+            log.warn("Clipboard import stopped at region {}", regions[0], e);
+            sendChatMessage("Import stopped at region " + regions[0] + ", unable to store the tiles.");
+            return;
+        }
+
+        if (playerName[0] != null) {
+            sendChatMessage("Imported " + tiles[0] + " tiles in " + (regions[0] - unchanged[0]) + " changed regions from " + playerName[0]
+                    + " (" + unchanged[0] + " unchanged).");
+        }
+    }
+
+    private void exportBundleToFile(MenuEntry menuEntry) {
+        final String playerName = plugin.getPlayerName();
+        chooseFile(true, path -> executor.execute(() -> exportBundle(playerName, path)));
+    }
+
+    private void importBundleFromFile(MenuEntry menuEntry) {
+        final String playerName = plugin.getPlayerName();
+        chooseFile(false, path -> executor.execute(() -> importBundle(playerName, path)));
+    }
 
-            for (String region : tilesFromUser.getRegionTiles().keySet() ) {
-                configManager.setConfiguration(GroupTilemanAddon.CONFIG_GROUP, tilesFromUser.getPlayerName() + "-" + region, gson.toJson(tilesFromUser.getRegionTiles().get(region)));
+    /**
+     * Asks for a bundle file on the Swing thread and hands the chosen one to {@code chosen} there.
+     */
+    private void chooseFile(boolean save, Consumer<Path> chosen) {
+        SwingUtilities.invokeLater(() -> {
+            final JFileChooser chooser = new JFileChooser();
+            chooser.setFileFilter(new FileNameExtensionFilter("Group tile bundles", TileBundle.EXTENSION));
+            final int result = save ? chooser.showSaveDialog(client.getCanvas()) : chooser.showOpenDialog(client.getCanvas());
+            if (result != JFileChooser.APPROVE_OPTION) {
+                return;
             }
-        } catch (JsonSyntaxException e) {
-            log.debug("Malformed JSON for clipboard import", e);
-            sendChatMessage("You do not have any ground markers copied in your clipboard.");
+
+            File file = chooser.getSelectedFile();
+            if (save && !file.getName().contains(".")) {
+                file = new File(file.getParentFile(), file.getName() + "." + TileBundle.EXTENSION);
+            }
+            chosen.accept(file.toPath());
+        });
+    }
+
+    /**
+     * Writes the player's own tiles and the stored tiles of every group member into a {@link TileBundle}, one
+     * region at a time. Stored tiles are read straight from the store so exporting doesn't churn the cache.
+     */
+    private void exportBundle(String playerName, Path path) {
+        final long start = System.nanoTime();
+        int regions = 0;
+        int parts;
+        try (TileBundle.Writer writer = TileBundle.Writer.create(path)) {
+            if (!playerName.isEmpty()) {
+                for (int regionId : OwnTiles.regionIds(configManager)) {
+                    final RegionTileSet region = OwnTiles.load(configManager, regionId);
+                    if (!region.isEmpty()) {
+                        writer.add(playerName, region);
+                        regions++;
+                    }
+                }
+            }
+
+            for (String player : plugin.getRoster().getPlayers()) {
+                if (player.equalsIgnoreCase(playerName)) {
+                    continue;
+                }
+                for (int regionId : tileLoader.getStore().regionIds(player)) {
+                    final RegionTileSet region = tileLoader.getStore().load(player, regionId);
+                    if (!region.isEmpty()) {
+                        writer.add(player, region);
+                        regions++;
+                    }
+                }
+            }
+            parts = writer.commit();
+        } catch (IOException e) {
+            log.warn("Unable to export tiles to {}", path, e);
+            sendChatMessage("Unable to write " + path.getFileName() + ".");
+            return;
+        }
+
+        log.debug("Exported {} regions in {} parts to {} in {}ms", regions, parts, path,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        sendChatMessage("Exported " + regions + " regions to " + path.getFileName() + ".");
+    }
+
+    /**
+     * Stores the other players' regions of a {@link TileBundle}, see {@link RegionImport}. The number of parts
+     * stored is kept in the config after each one, so importing the same file again after a failure resumes
+     * after the last complete part.
+     */
+    private void importBundle(String self, Path path) {
+        final String fileKey;
+        try {
+            fileKey = path.toAbsolutePath() + ":" + Files.size(path) + ":" + Files.getLastModifiedTime(path).toMillis();
+        } catch (IOException e) {
+            sendChatMessage("Unable to read " + path.getFileName() + ".");
+            return;
+        }
+
+        final int skip = resumedParts(fileKey);
+        if (skip > 0) {
+            sendChatMessage("Resuming the import of " + path.getFileName() + " after " + skip + " parts...");
+        }
+
+        final int[] regions = {0};
+        final int[] changed = {0};
+        try (RegionImport regionImport = new RegionImport(configManager, tileLoader)) {
+            TileBundle.read(path, skip, (index, part) -> {
+                TileDeltaCodec.decode(part, (player, region) -> {
+                    if (player.equalsIgnoreCase(self)) {
+                        return;
+                    }
+                    regions[0]++;
+                    if (regionImport.store(player, region)) {
+                        changed[0]++;
+                    }
+                });
+                configManager.setConfiguration(GroupTilemanAddon.CONFIG_GROUP, BUNDLE_IMPORT_PROGRESS_KEY, fileKey + "|" + (index + 1));
+            });
+        } catch (IOException | IllegalArgumentException e) {
+            log.warn("Bundle import of {} stopped after {} regions", path, regions[0], e);
+            sendChatMessage(regions[0] == 0 && skip == 0
+                    ? path.getFileName() + " is not a readable tile bundle."
+                    : "Import stopped after " + regions[0] + " regions, import the same file again to resume.");
+            return;
+        } catch (UncheckedIOException e) {
+            log.warn("Bundle import of {} stopped at region {}", path, regions[0], e);
+            sendChatMessage("Import stopped at region " + regions[0] + ", unable to store the tiles. Import the same file again to resume.");
+            return;
+        }
+
+        configManager.unsetConfiguration(GroupTilemanAddon.CONFIG_GROUP, BUNDLE_IMPORT_PROGRESS_KEY);
+        sendChatMessage("Imported " + regions[0] + " regions from " + path.getFileName() + " (" + (regions[0] - changed[0]) + " unchanged).");
+    }
+
+    /**
+     * Returns how many parts of the bundle identified by {@code fileKey} an earlier import already stored.
+     */
+    private int resumedParts(String fileKey) {
+        final String progress = configManager.getConfiguration(GroupTilemanAddon.CONFIG_GROUP, BUNDLE_IMPORT_PROGRESS_KEY);
+        if (Strings.isNullOrEmpty(progress)) {
+            return 0;
+        }
+
+        final int separator = progress.lastIndexOf('|');
+        if (separator < 0 || !progress.substring(0, separator).equals(fileKey)) {
+            return 0;
+        }
+        try {
+            return Integer.parseInt(progress.substring(separator + 1));
+        } catch (NumberFormatException e) {
+            return 0;
         }
     }
 
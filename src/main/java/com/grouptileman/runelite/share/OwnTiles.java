@@ -0,0 +1,51 @@
+package com.grouptileman.runelite.share;
+
+import com.grouptileman.GroupTilemanAddon;
+import com.grouptileman.runelite.tiles.RegionTileCodec;
+import com.grouptileman.runelite.tiles.RegionTileSet;
+import net.runelite.client.config.ConfigManager;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The local player's own tiles, kept by the Tileman Mode plugin as {@code region_<id>} keys of its config group.
+ */
+public final class OwnTiles {
+    private static final String KEY_PREFIX = GroupTilemanAddon.TILEMAN_CONFIG_GROUP + "." + GroupTilemanAddon.REGION_PREFIX;
+
+    private OwnTiles() {
+    }
+
+    /**
+     * Returns the ids of the regions holding tiles, read from the config keys without decoding any of them.
+     */
+    public static List<Integer> regionIds(ConfigManager configManager) {
+        List<Integer> regionIds = new ArrayList<>();
+        for (String key : configManager.getConfigurationKeys(KEY_PREFIX)) {
+            int regionId = parseRegionId(key.substring(GroupTilemanAddon.TILEMAN_CONFIG_GROUP.length() + 1));
+            if (regionId >= 0) {
+                regionIds.add(regionId);
+            }
+        }
+        return regionIds;
+    }
+
+    public static RegionTileSet load(ConfigManager configManager, int regionId) {
+        return RegionTileCodec.decode(regionId, payload(configManager, regionId));
+    }
+
+    /**
+     * Returns the stored {@code List<Tile>} JSON of a region, or null when it has none.
+     */
+    public static String payload(ConfigManager configManager, int regionId) {
+        return configManager.getConfiguration(GroupTilemanAddon.TILEMAN_CONFIG_GROUP, GroupTilemanAddon.REGION_PREFIX + regionId);
+    }
+
+    /**
+     * Returns the region id of a {@code region_<id>} key of the Tileman Mode config group, or -1 for other keys.
+     */
+    public static int parseRegionId(String key) {
+        return key.startsWith(GroupTilemanAddon.REGION_PREFIX) ? RegionTileCodec.parseRegionId(key, GroupTilemanAddon.REGION_PREFIX) : -1;
+    }
+}
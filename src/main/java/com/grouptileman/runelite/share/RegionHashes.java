@@ -0,0 +1,80 @@
+package com.grouptileman.runelite.share;
+
+import com.google.common.base.Strings;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Hash of each region of a player, stored as a single {@code <id>:<hex hash>;...} config value. Used to skip
+ * regions that haven't changed since the last export or import; imports keep content hashes, exports the
+ * hashes of the stored payloads.
+ */
+public class RegionHashes {
+    private final TreeMap<Integer, Long> hashes = new TreeMap<>();
+
+    public static RegionHashes parse(String value) {
+        RegionHashes regionHashes = new RegionHashes();
+        if (Strings.isNullOrEmpty(value)) {
+            return regionHashes;
+        }
+
+        for (String entry : value.split(";")) {
+            int separator = entry.indexOf(':');
+            if (separator <= 0) {
+                continue;
+            }
+            try {
+                regionHashes.hashes.put(Integer.parseInt(entry.substring(0, separator)), Long.parseUnsignedLong(entry.substring(separator + 1), 16));
+            } catch (NumberFormatException e) {
+                // a corrupt entry only costs re-sending that region
+            }
+        }
+        return regionHashes;
+    }
+
+    /**
+     * Hashes a stored region payload as is, for telling whether it changed without decoding it. Never 0, which
+     * stands for an empty region.
+     */
+    public static long hash(String payload) {
+        if (Strings.isNullOrEmpty(payload)) {
+            return 0;
+        }
+
+        // 64 bit FNV-1a
+        long hash = 0xCBF29CE484222325L;
+        for (int i = 0; i < payload.length(); i++) {
+            hash = (hash ^ payload.charAt(i)) * 0x100000001B3L;
+        }
+        return hash == 0 ? 1 : hash;
+    }
+
+    public Long get(int regionId) {
+        return hashes.get(regionId);
+    }
+
+    public void put(int regionId, long hash) {
+        hashes.put(regionId, hash);
+    }
+
+    public void remove(int regionId) {
+        hashes.remove(regionId);
+    }
+
+    public Iterable<Integer> regionIds() {
+        return hashes.keySet();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder(hashes.size() * 24);
+        for (Map.Entry<Integer, Long> entry : hashes.entrySet()) {
+            if (builder.length() > 0) {
+                builder.append(';');
+            }
+            builder.append(entry.getKey()).append(':').append(Long.toHexString(entry.getValue()));
+        }
+        return builder.toString();
+    }
+}
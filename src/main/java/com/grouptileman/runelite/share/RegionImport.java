@@ -0,0 +1,60 @@
+package com.grouptileman.runelite.share;
+
+import com.grouptileman.GroupTilemanAddon;
+import com.grouptileman.runelite.tiles.RegionTileSet;
+import com.grouptileman.runelite.tiles.TileLoader;
+import net.runelite.client.config.ConfigManager;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Stores regions received from group members as one {@link TileLoader} batch. Regions whose content hash
+ * matches what is already stored are skipped, so receiving a full export on top of an earlier one only
+ * writes the regions that changed. Closing the import saves the hashes and reloads the loaded tiles once.
+ */
+public class RegionImport implements AutoCloseable {
+    // hashes of the imported regions of a player, stored next to their <player>-region_<id> keys
+    private static final String REGION_HASHES_SUFFIX = "-regionHashes";
+
+    private final ConfigManager configManager;
+    private final TileLoader tileLoader;
+    private final Map<String, RegionHashes> storedHashes = new HashMap<>();
+
+    public RegionImport(ConfigManager configManager, TileLoader tileLoader) {
+        this.configManager = configManager;
+        this.tileLoader = tileLoader;
+        tileLoader.beginBatch();
+    }
+
+    /**
+     * Stores {@code region} as the tiles of {@code player}, returning false if it was already stored.
+     */
+    public boolean store(String player, RegionTileSet region) {
+        final int regionId = region.getRegionId();
+        final long hash = region.contentHash();
+        RegionHashes hashes = storedHashes.computeIfAbsent(player,
+                p -> RegionHashes.parse(configManager.getConfiguration(GroupTilemanAddon.CONFIG_GROUP, p + REGION_HASHES_SUFFIX)));
+        Long previous = hashes.get(regionId);
+        if (previous == null) {
+            // imported before hashes were stored, read from the store so a large import doesn't churn the cache
+            previous = tileLoader.getStore().load(player, regionId).contentHash();
+        }
+        if (previous == hash) {
+            hashes.put(regionId, hash);
+            return false;
+        }
+
+        tileLoader.save(player, region);
+        // only once saved, a region that failed to save must not look unchanged to the next import
+        hashes.put(regionId, hash);
+        return true;
+    }
+
+    @Override
+    public void close() {
+        storedHashes.forEach((player, hashes) ->
+                configManager.setConfiguration(GroupTilemanAddon.CONFIG_GROUP, player + REGION_HASHES_SUFFIX, hashes.toString()));
+        tileLoader.endBatch();
+    }
+}
@@ -0,0 +1,193 @@
+package com.grouptileman.runelite.share;
+
+import com.grouptileman.runelite.share.codec.TileDeltaCodec;
+import com.grouptileman.runelite.tiles.RegionTileSet;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A file holding the tiles of several players: a {@code GTMB} header and version followed by length prefixed
+ * parts, each a {@link TileDeltaCodec} message of one player's regions, at most {@link #MAX_REGIONS_PER_PART}
+ * of them. Bundles are written and read a part at a time through a file channel, so neither side holds more
+ * than a part in memory, and an interrupted import can pick up at the part it stopped at.
+ */
+public final class TileBundle {
+    public static final String EXTENSION = "gtmb";
+    static final int MAGIC = 0x47544D42;
+    static final int VERSION = 1;
+    static final int MAX_REGIONS_PER_PART = 100;
+    // far above any real part, keeps a corrupt length from allocating a huge buffer
+    static final int MAX_PART_BYTES = 16 << 20;
+    private static final int HEADER_BYTES = 2 * Integer.BYTES;
+
+    private TileBundle() {
+    }
+
+    public interface PartReader {
+        /**
+         * Receives the part at {@code index}, counted from the start of the file.
+         */
+        void read(int index, byte[] part) throws IOException;
+    }
+
+    /**
+     * Writes a bundle into a temporary file next to the target, moved over the target on {@link #commit()} so
+     * a failed export never leaves a partial bundle behind.
+     */
+    public static class Writer implements Closeable {
+        private final Path target;
+        private final Path temp;
+        private final FileChannel channel;
+        private final List<RegionTileSet> regions = new ArrayList<>(MAX_REGIONS_PER_PART);
+        private String player;
+        private int parts;
+        private boolean committed;
+
+        private Writer(Path target, Path temp, FileChannel channel) {
+            this.target = target;
+            this.temp = temp;
+            this.channel = channel;
+        }
+
+        public static Writer create(Path target) throws IOException {
+            Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+            FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+            Writer writer = new Writer(target, temp, channel);
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            header.putInt(MAGIC).putInt(VERSION).flip();
+            try {
+                writeFully(channel, header);
+            } catch (IOException e) {
+                writer.close();
+                throw e;
+            }
+            return writer;
+        }
+
+        /**
+         * Adds a region of {@code player}; regions of one player should be added together to fill the parts.
+         */
+        public void add(String player, RegionTileSet region) throws IOException {
+            if (!player.equals(this.player) || regions.size() == MAX_REGIONS_PER_PART) {
+                flush();
+                this.player = player;
+            }
+            regions.add(region);
+        }
+
+        /**
+         * Finishes the bundle and moves it into place, returning the number of parts written.
+         */
+        public int commit() throws IOException {
+            flush();
+            channel.force(true);
+            channel.close();
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            committed = true;
+            return parts;
+        }
+
+        private void flush() throws IOException {
+            if (regions.isEmpty()) {
+                return;
+            }
+
+            byte[] part = TileDeltaCodec.encode(player, regions);
+            ByteBuffer buffer = ByteBuffer.allocate(Integer.BYTES + part.length);
+            buffer.putInt(part.length).put(part).flip();
+            writeFully(channel, buffer);
+            regions.clear();
+            parts++;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (committed) {
+                return;
+            }
+            channel.close();
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Hands the parts of the bundle at {@code path} to {@code reader} in order, skipping the first {@code skip}
+     * without reading them.
+     *
+     * @throws IllegalArgumentException if the file isn't a bundle or a part length is corrupt
+     * @throws IOException if the file can't be read or ends inside a part
+     */
+    public static void read(Path path, int skip, PartReader reader) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            if (!readFully(channel, header)) {
+                throw new IllegalArgumentException("Not a tile bundle");
+            }
+            header.flip();
+            if (header.getInt() != MAGIC) {
+                throw new IllegalArgumentException("Not a tile bundle");
+            }
+            int version = header.getInt();
+            if (version != VERSION) {
+                throw new IllegalArgumentException("Unsupported tile bundle version " + version);
+            }
+
+            ByteBuffer length = ByteBuffer.allocate(Integer.BYTES);
+            for (int index = 0; ; index++) {
+                length.clear();
+                if (!readFully(channel, length)) {
+                    return;
+                }
+                length.flip();
+                int partBytes = length.getInt();
+                if (partBytes <= 0 || partBytes > MAX_PART_BYTES) {
+                    throw new IllegalArgumentException("Corrupt length " + partBytes + " of part " + index);
+                }
+
+                if (index < skip) {
+                    channel.position(channel.position() + partBytes);
+                    continue;
+                }
+
+                ByteBuffer part = ByteBuffer.allocate(partBytes);
+                if (!readFully(channel, part)) {
+                    throw new EOFException("Bundle ends inside part " + index);
+                }
+                reader.read(index, part.array());
+            }
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    /**
+     * Fills {@code buffer}, returning false if the channel was already at its end.
+     *
+     * @throws EOFException if the channel ends part way through
+     */
+    private static boolean readFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                if (buffer.position() == 0) {
+                    return false;
+                }
+                throw new EOFException("Bundle ends part way through a read");
+            }
+        }
+        return true;
+    }
+}
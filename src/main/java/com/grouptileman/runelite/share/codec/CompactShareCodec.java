@@ -0,0 +1,246 @@
+package com.grouptileman.runelite.share.codec;
+
+import com.grouptileman.runelite.tiles.RegionTileSet;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.SortedMap;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Compact export format: {@code GTM<version>:} followed by the Base64 of a deflated stream holding the
+ * player name and, per region, either the delta coded tile indices or the raw row bitmaps of each used
+ * plane, whichever is smaller. Exports decode the stored region JSON in parallel batches and stream the
+ * encoded regions straight into the output.
+ */
+public class CompactShareCodec implements ShareCodec {
+    static final int VERSION = 1;
+    static final String HEADER = "GTM" + VERSION + ":";
+
+    private static final int ENCODING_LIST = 0;
+    private static final int ENCODING_BITMAP = 1;
+    private static final int PLANE_BITMAP_BYTES = RegionTileSet.REGION_SIZE * Long.BYTES;
+    private static final int REGION_TILES = RegionTileSet.PLANES * RegionTileSet.REGION_SIZE * RegionTileSet.REGION_SIZE;
+
+    @Override
+    public boolean canDecode(String payload) {
+        return payload.trim().startsWith(HEADER);
+    }
+
+    @Override
+    public void encode(String playerName, SortedMap<Integer, String> regions, boolean validate, Writer out) throws IOException {
+        // converting decodes every region anyway, so there is nothing extra to validate
+        out.write(HEADER);
+        OutputStream base64 = Base64.getEncoder().wrap(new BufferedOutputStream(new AsciiOutputStream(out)));
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try (DataOutputStream data = new DataOutputStream(new DeflaterOutputStream(base64, deflater))) {
+            // malformed payloads are left out, so the count is only known once the regions are encoded
+            ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+            DataOutputStream encodedData = new DataOutputStream(encoded);
+            int[] count = {0};
+            RegionPayloads.decode(regions, region -> {
+                writeRegion(encodedData, region);
+                count[0]++;
+            });
+
+            writeVarInt(data, VERSION);
+            data.writeUTF(playerName);
+            writeVarInt(data, count[0]);
+            encoded.writeTo(data);
+        } finally {
+            deflater.end();
+        }
+    }
+
+    @Override
+    public void decode(String payload, RegionSink sink) {
+        String trimmed = payload.trim();
+        if (!trimmed.startsWith(HEADER)) {
+            throw new IllegalArgumentException("Missing " + HEADER + " header");
+        }
+
+        byte[] bytes = Base64.getMimeDecoder().decode(trimmed.substring(HEADER.length()).getBytes(StandardCharsets.US_ASCII));
+        try (DataInputStream in = new DataInputStream(new InflaterInputStream(new ByteArrayInputStream(bytes)))) {
+            int version = readVarInt(in);
+            if (version != VERSION) {
+                throw new IllegalArgumentException("Unsupported compact format version " + version);
+            }
+
+            String playerName = in.readUTF();
+            if (playerName.isEmpty()) {
+                throw new IllegalArgumentException("Empty player name");
+            }
+
+            int regionCount = readVarInt(in);
+            for (int i = 0; i < regionCount; i++) {
+                sink.accept(playerName, readRegion(in));
+            }
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Malformed compact tiles", e);
+        }
+    }
+
+    static void writeRegion(DataOutputStream out, RegionTileSet region) throws IOException {
+        writeVarInt(out, region.getRegionId());
+
+        int planeMask = 0;
+        int listBytes = varIntSize(region.size());
+        int previous = -1;
+        for (int plane = 0; plane < RegionTileSet.PLANES; plane++) {
+            for (int y = 0; y < RegionTileSet.REGION_SIZE; y++) {
+                long bits = region.row(plane, y);
+                if (bits != 0) {
+                    planeMask |= 1 << plane;
+                }
+                while (bits != 0) {
+                    int index = tileIndex(Long.numberOfTrailingZeros(bits), y, plane);
+                    listBytes += varIntSize(index - previous);
+                    previous = index;
+                    bits &= bits - 1;
+                }
+            }
+        }
+        int bitmapBytes = 1 + Integer.bitCount(planeMask) * PLANE_BITMAP_BYTES;
+
+        if (listBytes <= bitmapBytes) {
+            out.writeByte(ENCODING_LIST);
+            writeVarInt(out, region.size());
+            int[] last = {-1};
+            region.forEach((x, y, plane) -> {
+                int index = tileIndex(x, y, plane);
+                writeVarIntUnchecked(out, index - last[0]);
+                last[0] = index;
+            });
+        } else {
+            out.writeByte(ENCODING_BITMAP);
+            out.writeByte(planeMask);
+            for (int plane = 0; plane < RegionTileSet.PLANES; plane++) {
+                if ((planeMask & (1 << plane)) == 0) {
+                    continue;
+                }
+                for (int y = 0; y < RegionTileSet.REGION_SIZE; y++) {
+                    out.writeLong(region.row(plane, y));
+                }
+            }
+        }
+    }
+
+    static RegionTileSet readRegion(DataInputStream in) throws IOException {
+        RegionTileSet region = new RegionTileSet(readVarInt(in));
+        int encoding = in.readUnsignedByte();
+        if (encoding == ENCODING_LIST) {
+            int count = readVarInt(in);
+            if (count < 0 || count > REGION_TILES) {
+                throw new IOException("Tile count out of range: " + count);
+            }
+            int index = -1;
+            for (int i = 0; i < count; i++) {
+                // deltas are positive, anything else is a corrupt or hostile payload
+                index += readVarInt(in);
+                if (index < 0 || index >= REGION_TILES) {
+                    throw new IOException("Tile index out of range: " + index);
+                }
+                region.add(index & 63, (index >> 6) & 63, index >> 12);
+            }
+        } else if (encoding == ENCODING_BITMAP) {
+            int planeMask = in.readUnsignedByte();
+            for (int plane = 0; plane < RegionTileSet.PLANES; plane++) {
+                if ((planeMask & (1 << plane)) == 0) {
+                    continue;
+                }
+                for (int y = 0; y < RegionTileSet.REGION_SIZE; y++) {
+                    long bits = in.readLong();
+                    while (bits != 0) {
+                        region.add(Long.numberOfTrailingZeros(bits), y, plane);
+                        bits &= bits - 1;
+                    }
+                }
+            }
+        } else {
+            throw new IOException("Unknown region encoding " + encoding);
+        }
+        return region;
+    }
+
+    private static int tileIndex(int x, int y, int plane) {
+        return (plane << 12) | (y << 6) | x;
+    }
+
+    static void writeVarInt(DataOutput out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    private static void writeVarIntUnchecked(DataOutput out, int value) {
+        try {
+            writeVarInt(out, value);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    static int readVarInt(DataInput in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed varint");
+    }
+
+    private static int varIntSize(int value) {
+        int size = 1;
+        while ((value & ~0x7F) != 0) {
+            value >>>= 7;
+            size++;
+        }
+        return size;
+    }
+
+    /**
+     * Passes the ASCII output of the Base64 encoder on to a writer, leaving the writer open when closed.
+     */
+    private static final class AsciiOutputStream extends OutputStream {
+        private final Writer out;
+        private char[] chars = new char[0];
+
+        AsciiOutputStream(Writer out) {
+            this.out = out;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (chars.length < len) {
+                chars = new char[len];
+            }
+            for (int i = 0; i < len; i++) {
+                chars[i] = (char) b[off + i];
+            }
+            out.write(chars, 0, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+    }
+}
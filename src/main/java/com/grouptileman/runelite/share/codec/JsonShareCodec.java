@@ -0,0 +1,166 @@
+package com.grouptileman.runelite.share.codec;
+
+import com.google.common.base.Strings;
+import com.google.gson.Gson;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import com.grouptileman.runelite.config.TilesFromUser;
+import com.grouptileman.runelite.tiles.RegionTileCodec;
+import com.grouptileman.runelite.tiles.RegionTileSet;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+
+import static com.grouptileman.GroupTilemanAddon.REGION_PREFIX;
+
+/**
+ * The original export format, a {@link TilesFromUser} serialized as JSON. Decoding streams the
+ * payload one region at a time instead of binding the whole {@link TilesFromUser}, and exports splice the
+ * stored region JSON in as is unless asked to validate it. Spliced regions are only checked to be a JSON array,
+ * so a corrupt one is left out instead of breaking the whole export.
+ */
+@Slf4j
+public class JsonShareCodec implements ShareCodec {
+    private final Gson gson;
+
+    public JsonShareCodec(Gson gson) {
+        this.gson = gson;
+    }
+
+    @Override
+    public boolean canDecode(String payload) {
+        return payload.trim().startsWith("{");
+    }
+
+    @Override
+    public void encode(String playerName, SortedMap<Integer, String> regions, boolean validate, Writer out) throws IOException {
+        final JsonWriter writer = gson.newJsonWriter(out);
+        writer.beginObject();
+        writer.name("playerName").value(playerName);
+        writer.name("regionTiles").beginObject();
+        if (validate) {
+            RegionPayloads.decode(regions, region -> {
+                writer.name(REGION_PREFIX + region.getRegionId());
+                RegionTileCodec.write(writer, region);
+            });
+        } else {
+            for (Map.Entry<Integer, String> entry : regions.entrySet()) {
+                final String value = Strings.isNullOrEmpty(entry.getValue()) ? "[]" : entry.getValue();
+                if (!isJsonArray(value)) {
+                    log.warn("Leaving region {} out of the export, its stored tiles are not a JSON array", entry.getKey());
+                    continue;
+                }
+                writer.name(REGION_PREFIX + entry.getKey()).jsonValue(value);
+            }
+        }
+        writer.endObject();
+        writer.endObject();
+        writer.flush();
+    }
+
+    /**
+     * Checks that {@code value} is one JSON array with balanced brackets and terminated strings, without parsing
+     * its elements.
+     */
+    static boolean isJsonArray(String value) {
+        final String trimmed = value.trim();
+        if (!trimmed.startsWith("[")) {
+            return false;
+        }
+
+        final StringBuilder open = new StringBuilder();
+        boolean inString = false;
+        for (int i = 0; i < trimmed.length(); i++) {
+            final char c = trimmed.charAt(i);
+            if (inString) {
+                if (c == '\\') {
+                    i++;
+                } else if (c == '"') {
+                    inString = false;
+                }
+                continue;
+            }
+
+            switch (c) {
+                case '"':
+                    inString = true;
+                    break;
+                case '[':
+                case '{':
+                    open.append(c);
+                    break;
+                case ']':
+                case '}':
+                    if (open.length() == 0 || open.charAt(open.length() - 1) != (c == ']' ? '[' : '{')) {
+                        return false;
+                    }
+                    open.setLength(open.length() - 1);
+                    if (open.length() == 0 && i != trimmed.length() - 1) {
+                        // something after the array
+                        return false;
+                    }
+                    break;
+                default:
+            }
+        }
+        return open.length() == 0 && !inString;
+    }
+
+    @Override
+    public void decode(String payload, RegionSink sink) {
+        try (JsonReader reader = new JsonReader(new StringReader(payload))) {
+            String playerName = null;
+            // only used when regionTiles comes before playerName
+            List<RegionTileSet> pending = new ArrayList<>();
+
+            reader.beginObject();
+            while (reader.hasNext()) {
+                switch (reader.nextName()) {
+                    case "playerName":
+                        playerName = reader.nextString();
+                        if (playerName.isEmpty()) {
+                            throw new IllegalArgumentException("Empty player name");
+                        }
+                        for (RegionTileSet region : pending) {
+                            sink.accept(playerName, region);
+                        }
+                        pending.clear();
+                        break;
+                    case "regionTiles":
+                        reader.beginObject();
+                        while (reader.hasNext()) {
+                            int regionId = RegionTileCodec.parseRegionId(reader.nextName(), REGION_PREFIX);
+                            if (regionId < 0) {
+                                reader.skipValue();
+                                continue;
+                            }
+
+                            RegionTileSet region = RegionTileCodec.read(reader, regionId);
+                            if (playerName != null) {
+                                sink.accept(playerName, region);
+                            } else {
+                                pending.add(region);
+                            }
+                        }
+                        reader.endObject();
+                        break;
+                    default:
+                        reader.skipValue();
+                }
+            }
+            reader.endObject();
+
+            if (playerName == null) {
+                throw new IllegalArgumentException("Missing player name");
+            }
+        } catch (IOException | IllegalStateException | NumberFormatException e) {
+            throw new IllegalArgumentException("Malformed JSON tiles", e);
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.grouptileman.runelite.share.codec;
+
+import com.google.common.base.Strings;
+import com.google.gson.stream.JsonReader;
+import com.grouptileman.runelite.tiles.RegionTileCodec;
+import com.grouptileman.runelite.tiles.RegionTileSet;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.stream.Collectors;
+
+/**
+ * Decodes stored {@code List<Tile>} region payloads for codecs that convert them. Regions are decoded a batch
+ * at a time in parallel and handed out in order, so only one batch of decoded regions is held at once.
+ * A payload that doesn't parse is left out rather than handed out empty, which would erase the region
+ * for whoever imports it.
+ */
+@Slf4j
+final class RegionPayloads {
+    private static final int BATCH_SIZE = 64;
+
+    interface RegionWriter {
+        void write(RegionTileSet region) throws IOException;
+    }
+
+    private RegionPayloads() {
+    }
+
+    static void decode(SortedMap<Integer, String> regions, RegionWriter writer) throws IOException {
+        final List<Map.Entry<Integer, String>> batch = new ArrayList<>(BATCH_SIZE);
+        final List<Integer> malformed = new ArrayList<>();
+        for (Map.Entry<Integer, String> entry : regions.entrySet()) {
+            batch.add(entry);
+            if (batch.size() == BATCH_SIZE) {
+                write(batch, writer, malformed);
+            }
+        }
+        write(batch, writer, malformed);
+
+        if (!malformed.isEmpty()) {
+            log.warn("Left regions {} out of the export, their stored tiles are malformed", malformed);
+        }
+    }
+
+    private static void write(List<Map.Entry<Integer, String>> batch, RegionWriter writer, List<Integer> malformed) throws IOException {
+        final List<RegionTileSet> decoded = batch.parallelStream()
+                .map(RegionPayloads::parse)
+                .collect(Collectors.toList());
+        for (int i = 0; i < decoded.size(); i++) {
+            if (decoded.get(i) == null) {
+                malformed.add(batch.get(i).getKey());
+            } else {
+                writer.write(decoded.get(i));
+            }
+        }
+        batch.clear();
+    }
+
+    /**
+     * Returns the region of a stored payload, or null if it doesn't parse.
+     */
+    private static RegionTileSet parse(Map.Entry<Integer, String> entry) {
+        if (Strings.isNullOrEmpty(entry.getValue())) {
+            return new RegionTileSet(entry.getKey());
+        }
+
+        try (JsonReader reader = new JsonReader(new StringReader(entry.getValue()))) {
+            return RegionTileCodec.read(reader, entry.getKey());
+        } catch (IOException | IllegalStateException | NumberFormatException e) {
+            return null;
+        }
+    }
+}
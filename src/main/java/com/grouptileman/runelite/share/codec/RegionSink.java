@@ -0,0 +1,11 @@
+package com.grouptileman.runelite.share.codec;
+
+import com.grouptileman.runelite.tiles.RegionTileSet;
+
+/**
+ * Receives the regions of a payload one at a time while it is being decoded.
+ */
+@FunctionalInterface
+public interface RegionSink {
+    void accept(String playerName, RegionTileSet region);
+}
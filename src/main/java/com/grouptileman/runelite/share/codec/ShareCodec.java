@@ -0,0 +1,30 @@
+package com.grouptileman.runelite.share.codec;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.SortedMap;
+
+/**
+ * Text format used to move a player's tiles between clients.
+ */
+public interface ShareCodec {
+    /**
+     * Returns whether {@code payload} looks like it was produced by this codec.
+     */
+    boolean canDecode(String payload);
+
+    /**
+     * Streams an export of {@code playerName}'s regions to {@code out}, each given as its stored
+     * {@code List<Tile>} JSON. A null or empty payload exports the region empty. With {@code validate} every
+     * region is decoded first, which drops malformed tiles.
+     */
+    void encode(String playerName, SortedMap<Integer, String> regions, boolean validate, Writer out) throws IOException;
+
+    /**
+     * Decodes {@code payload}, handing each region to {@code sink} as soon as it has been read.
+     * Tiles with out of range coordinates are dropped.
+     *
+     * @throws IllegalArgumentException if the payload is malformed
+     */
+    void decode(String payload, RegionSink sink);
+}
@@ -0,0 +1,39 @@
+package com.grouptileman.runelite.share.codec;
+
+import com.google.gson.Gson;
+import com.grouptileman.runelite.config.ShareFormat;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+/**
+ * Registry of the available share formats.
+ */
+@Singleton
+public class ShareCodecs {
+    private final ShareCodec compact;
+    private final ShareCodec json;
+
+    @Inject
+    public ShareCodecs(Gson gson) {
+        this.compact = new CompactShareCodec();
+        this.json = new JsonShareCodec(gson);
+    }
+
+    public ShareCodec forFormat(ShareFormat format) {
+        return format == ShareFormat.JSON ? json : compact;
+    }
+
+    /**
+     * Returns the codec able to read {@code payload}, or null when no codec recognizes it.
+     */
+    public ShareCodec detect(String payload) {
+        if (compact.canDecode(payload)) {
+            return compact;
+        }
+        if (json.canDecode(payload)) {
+            return json;
+        }
+        return null;
+    }
+}
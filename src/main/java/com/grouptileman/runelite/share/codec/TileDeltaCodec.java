@@ -0,0 +1,67 @@
+package com.grouptileman.runelite.share.codec;
+
+import com.grouptileman.runelite.tiles.RegionTileSet;
+
+import java.io.*;
+import java.util.Collection;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Binary message carrying the changed regions of one player between sync clients: a deflated stream of the
+ * player name and the regions in the compact format. Each region replaces the stored one, an empty region
+ * removes it, so applying a message twice is harmless.
+ */
+public final class TileDeltaCodec {
+    static final int VERSION = 1;
+
+    private TileDeltaCodec() {
+    }
+
+    public static byte[] encode(String player, Collection<RegionTileSet> regions) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        // a deflater passed to the stream isn't ended when the stream closes
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try (DataOutputStream out = new DataOutputStream(new DeflaterOutputStream(bytes, deflater))) {
+            CompactShareCodec.writeVarInt(out, VERSION);
+            out.writeUTF(player);
+            CompactShareCodec.writeVarInt(out, regions.size());
+            for (RegionTileSet region : regions) {
+                CompactShareCodec.writeRegion(out, region);
+            }
+        } catch (IOException e) {
+            // in-memory streams don't throw
+            throw new UncheckedIOException(e);
+        } finally {
+            deflater.end();
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Hands each region of {@code message} to {@code sink} as it is read.
+     *
+     * @throws IllegalArgumentException if the message is malformed
+     */
+    public static void decode(byte[] message, RegionSink sink) {
+        try (DataInputStream in = new DataInputStream(new InflaterInputStream(new ByteArrayInputStream(message)))) {
+            int version = CompactShareCodec.readVarInt(in);
+            if (version != VERSION) {
+                throw new IllegalArgumentException("Unsupported delta version " + version);
+            }
+
+            String player = in.readUTF();
+            if (player.isEmpty()) {
+                throw new IllegalArgumentException("Empty player name");
+            }
+
+            int regionCount = CompactShareCodec.readVarInt(in);
+            for (int i = 0; i < regionCount; i++) {
+                sink.accept(player, CompactShareCodec.readRegion(in));
+            }
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Malformed tile delta", e);
+        }
+    }
+}
@@ -0,0 +1,339 @@
+package com.grouptileman.runelite.share.sync;
+
+import com.google.common.base.Strings;
+import com.grouptileman.GroupTilemanAddon;
+import com.grouptileman.runelite.config.TilemanModeConfig;
+import com.grouptileman.runelite.metrics.TileMetrics;
+import com.grouptileman.runelite.share.OwnTiles;
+import com.grouptileman.runelite.share.RegionHashes;
+import com.grouptileman.runelite.share.RegionImport;
+import com.grouptileman.runelite.share.codec.TileDeltaCodec;
+import com.grouptileman.runelite.tiles.GroupRoster;
+import com.grouptileman.runelite.tiles.RegionTileSet;
+import com.grouptileman.runelite.tiles.TileLoader;
+import lombok.extern.slf4j.Slf4j;
+import net.runelite.client.config.ConfigManager;
+import okhttp3.HttpUrl;
+import okhttp3.OkHttpClient;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static com.grouptileman.GroupTilemanAddon.CONFIG_GROUP;
+
+/**
+ * Keeps the group's tiles in sync through a relay, see {@link RelayClient}. Every cycle pushes the local
+ * player's regions that changed since they were last acknowledged, a bounded number per message, then pulls
+ * and stores the messages of the other members after the last one applied. Both positions are kept in the
+ * config, so a restarted client resumes where it stopped. Failed cycles are retried with exponential backoff.
+ * <p>
+ * All state is only touched on the executor; HTTP callbacks hop back onto it.
+ */
+@Slf4j
+@Singleton
+public class GroupSync {
+    // content hash of each own region as last acknowledged by the relay
+    private static final String PUSHED_HASHES_KEY = "syncPushedHashes";
+    // sequence number of the last relay message applied
+    private static final String PULLED_SEQUENCE_KEY = "syncPulledSequence";
+    private static final int MAX_REGIONS_PER_MESSAGE = 100;
+    private static final long MAX_BACKOFF_SECONDS = 300;
+
+    private final GroupTilemanAddon plugin;
+    private final TilemanModeConfig config;
+    private final ConfigManager configManager;
+    private final TileLoader tileLoader;
+    private final OkHttpClient httpClient;
+    private final ScheduledExecutorService executor;
+
+    private RelayClient relay;
+    private RegionHashes pushedHashes;
+    private long pulledSequence;
+    // own regions changed since they were last compared with the pushed hashes
+    private final Set<Integer> dirtyRegions = new HashSet<>();
+    private boolean scanAll;
+    private int failures;
+    // bumped on every start and stop, so callbacks of an abandoned cycle are dropped
+    private int generation;
+    private ScheduledFuture<?> nextCycle;
+
+    @Inject
+    private GroupSync(GroupTilemanAddon plugin, TilemanModeConfig config, ConfigManager configManager, TileLoader tileLoader,
+                      OkHttpClient httpClient, ScheduledExecutorService executor) {
+        this.plugin = plugin;
+        this.config = config;
+        this.configManager = configManager;
+        this.tileLoader = tileLoader;
+        this.httpClient = httpClient;
+        this.executor = executor;
+    }
+
+    /**
+     * Starts syncing with the configured relay, if there is one.
+     */
+    public void start() {
+        executor.execute(this::startCycles);
+    }
+
+    public void stop() {
+        executor.execute(this::stopCycles);
+    }
+
+    /**
+     * Restarts after the relay or group changed, forgetting what was pushed to and pulled from the old one.
+     */
+    public void reset() {
+        executor.execute(() -> {
+            stopCycles();
+            configManager.unsetConfiguration(CONFIG_GROUP, PUSHED_HASHES_KEY);
+            configManager.unsetConfiguration(CONFIG_GROUP, PULLED_SEQUENCE_KEY);
+            startCycles();
+        });
+    }
+
+    /**
+     * Marks one of the local player's regions as changed, to be pushed by the next cycle.
+     */
+    public void regionChanged(int regionId) {
+        executor.execute(() -> dirtyRegions.add(regionId));
+    }
+
+    private void startCycles() {
+        stopCycles();
+        final String endpoint = Strings.nullToEmpty(config.syncEndpoint()).trim();
+        final String group = Strings.nullToEmpty(config.syncGroup()).trim();
+        if (endpoint.isEmpty() || group.isEmpty()) {
+            return;
+        }
+
+        final HttpUrl url = HttpUrl.parse(endpoint);
+        if (url == null) {
+            log.warn("Not syncing, {} is not a valid relay URL", endpoint);
+            return;
+        }
+
+        relay = new RelayClient(httpClient, url, group);
+        pushedHashes = RegionHashes.parse(configManager.getConfiguration(CONFIG_GROUP, PUSHED_HASHES_KEY));
+        pulledSequence = parseSequence(configManager.getConfiguration(CONFIG_GROUP, PULLED_SEQUENCE_KEY));
+        scanAll = true;
+        failures = 0;
+        schedule(0);
+    }
+
+    private void stopCycles() {
+        generation++;
+        relay = null;
+        if (nextCycle != null) {
+            nextCycle.cancel(false);
+            nextCycle = null;
+        }
+    }
+
+    private void schedule(long delaySeconds) {
+        final int cycleGeneration = generation;
+        nextCycle = executor.schedule(() -> cycle(cycleGeneration), delaySeconds, TimeUnit.SECONDS);
+    }
+
+    private void cycle(int cycleGeneration) {
+        if (cycleGeneration != generation) {
+            return;
+        }
+
+        final String player = plugin.getLocalPlayerName();
+        if (player.isEmpty()) {
+            // own tiles can only be told apart from the group's once logged in
+            schedule(config.syncInterval());
+            return;
+        }
+
+        push(player, cycleGeneration)
+                .thenCompose(v -> pull(player, cycleGeneration))
+                .whenCompleteAsync((v, e) -> {
+                    if (cycleGeneration != generation) {
+                        return;
+                    }
+                    if (e == null) {
+                        failures = 0;
+                        schedule(config.syncInterval());
+                        return;
+                    }
+
+                    failures++;
+                    long delay = backoff(config.syncInterval(), failures);
+                    log.debug("Sync failed {} times, retrying in {}s", failures, delay, e);
+                    schedule(delay);
+                }, executor);
+    }
+
+    /**
+     * Pushes the changed own regions one message at a time until none are left.
+     */
+    private CompletableFuture<Void> push(String player, int cycleGeneration) {
+        if (cycleGeneration != generation) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        final List<RegionTileSet> changed = changedRegions();
+        if (changed.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        final byte[] message = TileDeltaCodec.encode(player, changed);
+        return relay.push(message).thenComposeAsync(sequence -> {
+            if (cycleGeneration != generation) {
+                return CompletableFuture.completedFuture(null);
+            }
+
+            // the regions stay dirty, so ones changed again while in flight are compared once more
+            for (RegionTileSet region : changed) {
+                // a region pushed empty is gone for the group, so it needs no hash any more
+                if (region.isEmpty()) {
+                    pushedHashes.remove(region.getRegionId());
+                } else {
+                    pushedHashes.put(region.getRegionId(), region.contentHash());
+                }
+            }
+            configManager.setConfiguration(CONFIG_GROUP, PUSHED_HASHES_KEY, pushedHashes.toString());
+            tileLoader.getMetrics().counter(TileMetrics.SYNC_BYTES_SENT).addAndGet(message.length);
+            tileLoader.getMetrics().counter(TileMetrics.SYNC_REGIONS_SENT).addAndGet(changed.size());
+            log.debug("Pushed {} regions in {} bytes as message {}", changed.size(), message.length, sequence);
+            return push(player, cycleGeneration);
+        }, executor);
+    }
+
+    /**
+     * Returns up to a message's worth of own regions whose content differs from what was last pushed.
+     */
+    private List<RegionTileSet> changedRegions() {
+        if (scanAll) {
+            dirtyRegions.addAll(OwnTiles.regionIds(configManager));
+            for (int regionId : pushedHashes.regionIds()) {
+                // regions removed since the last push
+                dirtyRegions.add(regionId);
+            }
+            scanAll = false;
+        }
+
+        final List<RegionTileSet> changed = new ArrayList<>();
+        final Iterator<Integer> iterator = dirtyRegions.iterator();
+        while (iterator.hasNext() && changed.size() < MAX_REGIONS_PER_MESSAGE) {
+            final RegionTileSet region = OwnTiles.load(configManager, iterator.next());
+            final Long pushed = pushedHashes.get(region.getRegionId());
+            if (pushed == null ? region.isEmpty() : pushed == region.contentHash()) {
+                iterator.remove();
+            } else {
+                changed.add(region);
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Pulls and applies the messages after the last applied one until the relay has no more.
+     */
+    private CompletableFuture<Void> pull(String player, int cycleGeneration) {
+        if (cycleGeneration != generation) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        final long after = pulledSequence;
+        return relay.pull(after).thenComposeAsync(messages -> {
+            if (cycleGeneration != generation) {
+                return CompletableFuture.completedFuture(null);
+            }
+
+            if (messages.getLatest() < after) {
+                // the relay lost its log, start over and push everything again
+                log.info("Relay is behind the last applied message {}, resyncing", after);
+                pulledSequence = 0;
+                pushedHashes = new RegionHashes();
+                scanAll = true;
+                configManager.unsetConfiguration(CONFIG_GROUP, PUSHED_HASHES_KEY);
+                configManager.unsetConfiguration(CONFIG_GROUP, PULLED_SEQUENCE_KEY);
+                return push(player, cycleGeneration).thenCompose(v -> pull(player, cycleGeneration));
+            }
+
+            if (messages.getMessages().isEmpty()) {
+                return CompletableFuture.completedFuture(null);
+            }
+
+            apply(player, messages.getMessages());
+            if (pulledSequence <= after) {
+                // only messages already applied, asking again would get the same ones
+                log.warn("Relay returned no messages after {}, stopping this pull", after);
+                return CompletableFuture.completedFuture(null);
+            }
+            return pulledSequence < messages.getLatest() ? pull(player, cycleGeneration) : CompletableFuture.completedFuture(null);
+        }, executor);
+    }
+
+    /**
+     * Stores the regions of the messages after the last applied one. Only regions of the current roster's other
+     * members are stored, under the roster's spelling of their name; anyone holding the group key can append
+     * to the relay, so other senders are dropped.
+     */
+    private void apply(String self, List<RelayClient.Message> messages) {
+        final GroupRoster roster = plugin.getRoster();
+        final int[] regions = {0};
+        final int[] rejected = {0};
+        try (RegionImport regionImport = new RegionImport(configManager, tileLoader)) {
+            for (RelayClient.Message message : messages) {
+                if (message.getSequence() <= pulledSequence) {
+                    continue;
+                }
+                tileLoader.getMetrics().counter(TileMetrics.SYNC_BYTES_RECEIVED).addAndGet(message.getBody().length);
+                try {
+                    TileDeltaCodec.decode(message.getBody(), (player, region) -> {
+                        // our own pushes come back too
+                        if (player.equalsIgnoreCase(self)) {
+                            return;
+                        }
+                        final String member = roster.find(player);
+                        if (member == null) {
+                            log.debug("Dropping region {} of {} from message {}, not in the group", region.getRegionId(), player, message.getSequence());
+                            rejected[0]++;
+                            return;
+                        }
+                        regionImport.store(member, region);
+                        regions[0]++;
+                    });
+                } catch (IllegalArgumentException e) {
+                    log.warn("Skipping malformed sync message {}", message.getSequence(), e);
+                }
+                pulledSequence = message.getSequence();
+            }
+        }
+
+        configManager.setConfiguration(CONFIG_GROUP, PULLED_SEQUENCE_KEY, Long.toString(pulledSequence));
+        tileLoader.getMetrics().counter(TileMetrics.SYNC_REGIONS_RECEIVED).addAndGet(regions[0]);
+        tileLoader.getMetrics().counter(TileMetrics.SYNC_REGIONS_REJECTED).addAndGet(rejected[0]);
+        log.debug("Applied {} regions from {} messages, up to {}", regions[0], messages.size(), pulledSequence);
+    }
+
+    private static long parseSequence(String sequence) {
+        if (Strings.isNullOrEmpty(sequence)) {
+            return 0;
+        }
+        try {
+            return Long.parseLong(sequence.trim());
+        } catch (NumberFormatException e) {
+            // a corrupt position only costs pulling the whole log again
+            return 0;
+        }
+    }
+
+    /**
+     * Doubles the interval with every consecutive failure up to a cap, with some jitter so a group whose relay
+     * comes back doesn't retry in lockstep.
+     */
+    static long backoff(int intervalSeconds, int failures) {
+        long delay = Math.min(MAX_BACKOFF_SECONDS, (long) intervalSeconds << Math.min(failures, 16));
+        return Math.max(1, Math.round(delay * ThreadLocalRandom.current().nextDouble(0.8, 1.2)));
+    }
+}
@@ -0,0 +1,157 @@
+package com.grouptileman.runelite.share.sync;
+
+import lombok.Value;
+import okhttp3.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Client of a tile relay. The relay keeps an append-only log of {@code TileDeltaCodec} messages per group and
+ * numbers them in the order they arrive; it never looks inside them.
+ * <ul>
+ * <li>{@code POST <endpoint>/groups/<group>/messages} appends the request body and responds with its sequence
+ * number as 8 bytes.</li>
+ * <li>{@code GET <endpoint>/groups/<group>/messages?after=<sequence>} responds with the latest sequence number,
+ * the number of messages that follow and, for each message after {@code sequence} oldest first, its sequence
+ * number, length and bytes. The relay may return only the oldest of them.</li>
+ * </ul>
+ * Calls run on the HTTP client's threads and complete the returned futures there.
+ */
+public class RelayClient {
+    private static final MediaType OCTET_STREAM = MediaType.parse("application/octet-stream");
+    // the relay may return only the oldest messages, so a response never has to be larger than this
+    static final int MAX_RESPONSE_BYTES = 32 << 20;
+
+    private final OkHttpClient httpClient;
+    private final HttpUrl messagesUrl;
+
+    @Value
+    public static class Message {
+        long sequence;
+        byte[] body;
+    }
+
+    @Value
+    public static class Messages {
+        // sequence number of the newest message the relay holds, which may be past the returned ones
+        long latest;
+        List<Message> messages;
+    }
+
+    public RelayClient(OkHttpClient httpClient, HttpUrl endpoint, String group) {
+        this.httpClient = httpClient;
+        this.messagesUrl = endpoint.newBuilder()
+                .addPathSegment("groups")
+                .addPathSegment(group)
+                .addPathSegment("messages")
+                .build();
+    }
+
+    /**
+     * Appends {@code message} to the group's log, completing with its sequence number.
+     */
+    public CompletableFuture<Long> push(byte[] message) {
+        Request request = new Request.Builder()
+                .url(messagesUrl)
+                .post(RequestBody.create(OCTET_STREAM, message))
+                .build();
+        return call(request, body -> {
+            if (body.length != Long.BYTES) {
+                throw new IOException("Malformed push response of " + body.length + " bytes");
+            }
+            return ByteBuffer.wrap(body).getLong();
+        });
+    }
+
+    /**
+     * Fetches the messages after {@code sequence}.
+     */
+    public CompletableFuture<Messages> pull(long sequence) {
+        Request request = new Request.Builder()
+                .url(messagesUrl.newBuilder().addQueryParameter("after", Long.toString(sequence)).build())
+                .get()
+                .build();
+        return call(request, RelayClient::readMessages);
+    }
+
+    /**
+     * Reads a pull response. Counts and lengths come from the relay, so they are checked against what is
+     * left of the body before anything is allocated.
+     */
+    static Messages readMessages(byte[] body) throws IOException {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(body))) {
+            long latest = in.readLong();
+            int count = in.readInt();
+            if (count < 0) {
+                throw new IOException("Malformed message count " + count);
+            }
+            List<Message> messages = new ArrayList<>(Math.min(count, 1024));
+            for (int i = 0; i < count; i++) {
+                long messageSequence = in.readLong();
+                int length = in.readInt();
+                if (length < 0 || length > in.available()) {
+                    throw new IOException("Malformed length " + length + " of message " + messageSequence);
+                }
+                byte[] message = new byte[length];
+                in.readFully(message);
+                messages.add(new Message(messageSequence, message));
+            }
+            return new Messages(latest, messages);
+        }
+    }
+
+    /**
+     * Reads a response body of at most {@code limit} bytes, failing before buffering the rest of a larger one.
+     * {@code contentLength} is the declared length, or -1 if the relay did not declare one.
+     */
+    static byte[] readBody(InputStream in, long contentLength, int limit) throws IOException {
+        if (contentLength > limit) {
+            throw new IOException("Relay response of " + contentLength + " bytes is over the " + limit + " byte limit");
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream(contentLength > 0 ? (int) contentLength : 8192);
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            if (out.size() + read > limit) {
+                throw new IOException("Relay response is over the " + limit + " byte limit");
+            }
+            out.write(buffer, 0, read);
+        }
+        return out.toByteArray();
+    }
+
+    private interface ResponseReader<T> {
+        T read(byte[] body) throws IOException;
+    }
+
+    private <T> CompletableFuture<T> call(Request request, ResponseReader<T> reader) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        httpClient.newCall(request).enqueue(new Callback() {
+            @Override
+            public void onFailure(Call call, IOException e) {
+                future.completeExceptionally(e);
+            }
+
+            @Override
+            public void onResponse(Call call, Response response) {
+                try (ResponseBody body = response.body()) {
+                    if (!response.isSuccessful() || body == null) {
+                        throw new IOException("Relay responded " + response.code() + " to " + request.method() + " " + request.url());
+                    }
+                    future.complete(reader.read(readBody(body.byteStream(), body.contentLength(), MAX_RESPONSE_BYTES)));
+                } catch (IOException | RuntimeException e) {
+                    future.completeExceptionally(e);
+                }
+            }
+        });
+        return future;
+    }
+}
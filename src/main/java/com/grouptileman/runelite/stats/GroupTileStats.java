@@ -0,0 +1,226 @@
+package com.grouptileman.runelite.stats;
+
+import com.grouptileman.runelite.share.OwnTiles;
+import com.grouptileman.runelite.tiles.GroupRegion;
+import com.grouptileman.runelite.tiles.GroupRoster;
+import com.grouptileman.runelite.tiles.RegionTileSet;
+import com.grouptileman.runelite.tiles.TileLoader;
+import com.grouptileman.runelite.tiles.store.TileStore;
+import lombok.extern.slf4j.Slf4j;
+import net.runelite.client.config.ConfigManager;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.util.*;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Keeps running tile counts of the group: each member's tiles, the player's own tiles, and the unique and
+ * overlapping tiles of the group per region and plane. Counts are built once when the roster is set and then
+ * updated region by region from the loader's and the Tileman Mode config's change events, so reading them
+ * never scans the stored tiles.
+ * <p>
+ * Counting runs on the executor; a {@link TileStats} snapshot is published at most a few times a second.
+ * Regions are read straight from the store, so counting the whole group doesn't evict the loaded scene's
+ * tiles from the loader's caches.
+ */
+@Slf4j
+@Singleton
+public class GroupTileStats implements TileStore.Listener {
+    private static final long PUBLISH_DELAY_MILLIS = 250;
+    private static final int TOP_REGIONS = 10;
+
+    private final TileLoader tileLoader;
+    private final ConfigManager configManager;
+    private final ScheduledExecutorService executor;
+
+    private GroupRoster roster = GroupRoster.EMPTY;
+    // tiles in each member's stored regions, and per plane in the group's union and overlap of each region
+    private final Map<String, Map<Integer, Integer>> memberRegions = new HashMap<>();
+    private final Map<Integer, int[]> uniqueRegions = new HashMap<>();
+    private final Map<Integer, int[]> overlapRegions = new HashMap<>();
+    private final Map<Integer, Integer> ownRegions = new HashMap<>();
+    private final Map<String, Integer> memberTiles = new HashMap<>();
+    private final int[] uniqueTiles = new int[RegionTileSet.PLANES];
+    private final int[] overlapTiles = new int[RegionTileSet.PLANES];
+    private int ownTiles;
+    private boolean publishScheduled;
+
+    private volatile TileStats stats = TileStats.EMPTY;
+    private volatile Consumer<TileStats> listener;
+
+    @Inject
+    private GroupTileStats(TileLoader tileLoader, ConfigManager configManager, ScheduledExecutorService executor) {
+        this.tileLoader = tileLoader;
+        this.configManager = configManager;
+        this.executor = executor;
+    }
+
+    public TileStats getStats() {
+        return stats;
+    }
+
+    /**
+     * Sets who is told about every published snapshot, on the executor.
+     */
+    public void setListener(Consumer<TileStats> listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Schedules counting every stored region of {@code roster} and the player's own tiles from scratch.
+     */
+    public void rebuild(GroupRoster roster) {
+        executor.execute(() -> {
+            final long start = System.nanoTime();
+            this.roster = roster;
+            memberRegions.clear();
+            uniqueRegions.clear();
+            overlapRegions.clear();
+            ownRegions.clear();
+            memberTiles.clear();
+            Arrays.fill(uniqueTiles, 0);
+            Arrays.fill(overlapTiles, 0);
+            ownTiles = 0;
+
+            final Set<Integer> regionIds = new HashSet<>();
+            for (String player : roster.getPlayers()) {
+                memberTiles.put(player, 0);
+                regionIds.addAll(tileLoader.getStore().regionIds(player));
+            }
+            for (int regionId : regionIds) {
+                count(regionId, null);
+            }
+            for (int regionId : OwnTiles.regionIds(configManager)) {
+                countOwn(regionId);
+            }
+
+            log.debug("Counted {} group regions in {}ms", regionIds.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            schedulePublish();
+        });
+    }
+
+    /**
+     * Recounts a stored region of a group member.
+     */
+    @Override
+    public void regionChanged(String player, int regionId) {
+        executor.execute(() -> {
+            if (!roster.contains(player)) {
+                return;
+            }
+            count(regionId, player);
+            schedulePublish();
+        });
+    }
+
+    /**
+     * Recounts a region of the player's own tiles.
+     */
+    public void ownRegionChanged(int regionId) {
+        executor.execute(() -> {
+            countOwn(regionId);
+            schedulePublish();
+        });
+    }
+
+    /**
+     * Loads every member's tiles of a region once and recounts the region for the group and for
+     * {@code changedPlayer}, or for every member when that is null.
+     */
+    private void count(int regionId, String changedPlayer) {
+        final Map<String, RegionTileSet> tiles = new HashMap<>();
+        for (String player : roster.getPlayers()) {
+            tiles.put(player, tileLoader.getStore().load(player, regionId));
+        }
+
+        tiles.forEach((player, region) -> {
+            if (changedPlayer == null || changedPlayer.equals(player)) {
+                countMember(player, region);
+            }
+        });
+        countGroup(GroupRegion.load(regionId, roster, tiles::get));
+    }
+
+    private void countMember(String player, RegionTileSet tiles) {
+        final int regionId = tiles.getRegionId();
+        final Map<Integer, Integer> regions = memberRegions.computeIfAbsent(player, p -> new HashMap<>());
+        final Integer previous = tiles.isEmpty() ? regions.remove(regionId) : regions.put(regionId, tiles.size());
+        memberTiles.merge(player, tiles.size() - (previous == null ? 0 : previous), Integer::sum);
+    }
+
+    private void countGroup(GroupRegion region) {
+        final int regionId = region.getRegionId();
+        final int[] unique = new int[RegionTileSet.PLANES];
+        final int[] overlap = new int[RegionTileSet.PLANES];
+        for (int plane = 0; plane < RegionTileSet.PLANES; plane++) {
+            unique[plane] = region.getUnion().size(plane);
+            overlap[plane] = unique[plane] == 0 ? 0 : region.overlapSize(plane);
+        }
+
+        replace(uniqueRegions, regionId, unique, uniqueTiles);
+        replace(overlapRegions, regionId, overlap, overlapTiles);
+    }
+
+    private void countOwn(int regionId) {
+        final int size = OwnTiles.load(configManager, regionId).size();
+        final Integer previous = size == 0 ? ownRegions.remove(regionId) : ownRegions.put(regionId, size);
+        ownTiles += size - (previous == null ? 0 : previous);
+    }
+
+    /**
+     * Stores the per plane counts of a region and moves the totals by the difference to the previous counts.
+     */
+    private static void replace(Map<Integer, int[]> regions, int regionId, int[] counts, int[] totals) {
+        final int[] previous = sum(counts) == 0 ? regions.remove(regionId) : regions.put(regionId, counts);
+        for (int plane = 0; plane < RegionTileSet.PLANES; plane++) {
+            totals[plane] += counts[plane] - (previous == null ? 0 : previous[plane]);
+        }
+    }
+
+    private void schedulePublish() {
+        if (publishScheduled) {
+            return;
+        }
+        publishScheduled = true;
+        executor.schedule(this::publish, PUBLISH_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    private void publish() {
+        publishScheduled = false;
+
+        final List<Map.Entry<Integer, int[]>> regions = new ArrayList<>(uniqueRegions.entrySet());
+        regions.sort(Comparator.comparingInt((Map.Entry<Integer, int[]> entry) -> sum(entry.getValue())).reversed());
+        final Map<Integer, Integer> topRegions = new LinkedHashMap<>();
+        for (Map.Entry<Integer, int[]> entry : regions.subList(0, Math.min(TOP_REGIONS, regions.size()))) {
+            topRegions.put(entry.getKey(), sum(entry.getValue()));
+        }
+
+        final Map<String, Integer> members = new LinkedHashMap<>();
+        for (String player : roster.getPlayers()) {
+            members.put(player, memberTiles.getOrDefault(player, 0));
+        }
+
+        final TileStats next = new TileStats(Collections.unmodifiableMap(members), ownTiles, sum(uniqueTiles), sum(overlapTiles),
+                uniqueTiles.clone(), uniqueRegions.size(), Collections.unmodifiableMap(topRegions));
+        stats = next;
+
+        final Consumer<TileStats> listener = this.listener;
+        if (listener != null) {
+            listener.accept(next);
+        }
+    }
+
+    private static int sum(int[] counts) {
+        if (counts == null) {
+            return 0;
+        }
+        int sum = 0;
+        for (int count : counts) {
+            sum += count;
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,38 @@
+package com.grouptileman.runelite.stats;
+
+import com.grouptileman.runelite.tiles.RegionTileSet;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Value;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Tile counts of the group at one point in time, see {@link GroupTileStats}.
+ */
+@Value
+public class TileStats {
+    public static final TileStats EMPTY = new TileStats(Collections.emptyMap(), 0, 0, 0, new int[RegionTileSet.PLANES], 0, Collections.emptyMap());
+
+    // stored tiles of each member, in roster order
+    Map<String, Integer> memberTiles;
+    // the player's own Tileman Mode tiles
+    int ownTiles;
+    // tiles marked by at least one member, and by more than one
+    int uniqueTiles;
+    int overlapTiles;
+    // shared with the UI thread, so only read through getPlaneTiles(plane)
+    @Getter(AccessLevel.NONE)
+    int[] planeTiles;
+    int regionCount;
+    // the regions with the most unique tiles, most first
+    Map<Integer, Integer> topRegions;
+
+    /**
+     * Returns the unique tiles on {@code plane}.
+     */
+    public int getPlaneTiles(int plane) {
+        return planeTiles[plane];
+    }
+}
@@ -0,0 +1,113 @@
+package com.grouptileman.runelite.stats;
+
+import com.grouptileman.runelite.tiles.RegionTileSet;
+import net.runelite.client.ui.ColorScheme;
+import net.runelite.client.ui.FontManager;
+import net.runelite.client.ui.PluginPanel;
+import net.runelite.client.util.QuantityFormatter;
+
+import javax.swing.*;
+import javax.swing.border.EmptyBorder;
+import java.awt.*;
+import java.util.Map;
+
+/**
+ * Side panel showing the latest {@link TileStats}. It only ever displays published snapshots, opening it
+ * doesn't count anything.
+ */
+public class TileStatsPanel extends PluginPanel {
+    private static final String[] PLANE_NAMES = {"Ground floor", "First floor", "Second floor", "Third floor"};
+
+    private final JPanel content = new JPanel(new GridBagLayout());
+
+    public TileStatsPanel() {
+        setBorder(new EmptyBorder(10, 10, 10, 10));
+        setBackground(ColorScheme.DARK_GRAY_COLOR);
+        setLayout(new BorderLayout());
+        content.setBackground(ColorScheme.DARK_GRAY_COLOR);
+        add(content, BorderLayout.NORTH);
+        display(TileStats.EMPTY);
+    }
+
+    /**
+     * Shows {@code stats}. Safe to call from any thread.
+     */
+    public void update(TileStats stats) {
+        SwingUtilities.invokeLater(() -> display(stats));
+    }
+
+    private void display(TileStats stats) {
+        content.removeAll();
+        final GridBagConstraints constraints = new GridBagConstraints();
+        constraints.fill = GridBagConstraints.HORIZONTAL;
+        constraints.weightx = 1;
+        constraints.gridy = 0;
+
+        addTitle(constraints, "Group");
+        addRow(constraints, "Unique tiles", stats.getUniqueTiles());
+        addRow(constraints, "Marked by several", stats.getOverlapTiles());
+        addRow(constraints, "Regions", stats.getRegionCount());
+        addRow(constraints, "Your tiles", stats.getOwnTiles());
+
+        addTitle(constraints, "Members");
+        if (stats.getMemberTiles().isEmpty()) {
+            addText(constraints, "Add group members in the plugin settings");
+        }
+        for (Map.Entry<String, Integer> member : stats.getMemberTiles().entrySet()) {
+            addRow(constraints, member.getKey(), member.getValue());
+        }
+
+        addTitle(constraints, "Floors");
+        for (int plane = 0; plane < RegionTileSet.PLANES; plane++) {
+            if (stats.getPlaneTiles(plane) > 0) {
+                addRow(constraints, PLANE_NAMES[plane], stats.getPlaneTiles(plane));
+            }
+        }
+
+        if (!stats.getTopRegions().isEmpty()) {
+            addTitle(constraints, "Top regions");
+            for (Map.Entry<Integer, Integer> region : stats.getTopRegions().entrySet()) {
+                addRow(constraints, "Region " + region.getKey(), region.getValue());
+            }
+        }
+
+        content.revalidate();
+        content.repaint();
+    }
+
+    private void addTitle(GridBagConstraints constraints, String title) {
+        final JLabel label = new JLabel(title);
+        label.setFont(FontManager.getRunescapeBoldFont());
+        label.setForeground(Color.WHITE);
+        label.setBorder(new EmptyBorder(constraints.gridy == 0 ? 0 : 10, 0, 4, 0));
+        constraints.gridx = 0;
+        constraints.gridwidth = 2;
+        content.add(label, constraints);
+        constraints.gridwidth = 1;
+        constraints.gridy++;
+    }
+
+    private void addRow(GridBagConstraints constraints, String name, int count) {
+        final JLabel nameLabel = new JLabel(name);
+        nameLabel.setForeground(ColorScheme.LIGHT_GRAY_COLOR);
+        final JLabel countLabel = new JLabel(QuantityFormatter.formatNumber(count), SwingConstants.RIGHT);
+        countLabel.setForeground(Color.WHITE);
+
+        constraints.gridx = 0;
+        content.add(nameLabel, constraints);
+        constraints.gridx = 1;
+        content.add(countLabel, constraints);
+        constraints.gridy++;
+    }
+
+    private void addText(GridBagConstraints constraints, String text) {
+        final JLabel label = new JLabel(text);
+        label.setForeground(ColorScheme.LIGHT_GRAY_COLOR);
+        label.setFont(FontManager.getRunescapeSmallFont());
+        constraints.gridx = 0;
+        constraints.gridwidth = 2;
+        content.add(label, constraints);
+        constraints.gridwidth = 1;
+        constraints.gridy++;
+    }
+}
@@ -0,0 +1,117 @@
+package com.grouptileman.runelite.tiles;
+
+import lombok.Getter;
+
+import java.util.function.Function;
+
+/**
+ * The untranslated tiles of every group member in one region: the union, for drawing each tile once,
+ * and each member's own tiles by roster index, for telling who owns a tile.
+ */
+public class GroupRegion {
+    // owner masks have one bit per member, later members are left out of them
+    public static final int MAX_MASK_OWNERS = Long.SIZE;
+
+    @Getter
+    private final int regionId;
+    @Getter
+    private final GroupRoster roster;
+    @Getter
+    private final RegionTileSet union;
+    private final RegionTileSet[] owners;
+
+    private GroupRegion(int regionId, GroupRoster roster, RegionTileSet union, RegionTileSet[] owners) {
+        this.regionId = regionId;
+        this.roster = roster;
+        this.union = union;
+        this.owners = owners;
+    }
+
+    /**
+     * Builds the region from each member's tiles. The sets returned by {@code tiles} are shared, not copied.
+     */
+    public static GroupRegion load(int regionId, GroupRoster roster, Function<String, RegionTileSet> tiles) {
+        final RegionTileSet[] owners = new RegionTileSet[roster.size()];
+        RegionTileSet union = null;
+        int nonEmpty = 0;
+        for (int i = 0; i < owners.length; i++) {
+            owners[i] = tiles.apply(roster.getPlayer(i));
+            if (!owners[i].isEmpty()) {
+                union = owners[i];
+                nonEmpty++;
+            }
+        }
+
+        // a single owner's tiles are the union, only copy when there is something to merge
+        if (nonEmpty != 1) {
+            union = new RegionTileSet(regionId);
+            for (RegionTileSet owner : owners) {
+                union.addAll(owner);
+            }
+        }
+        return new GroupRegion(regionId, roster, union, owners);
+    }
+
+    public boolean isEmpty() {
+        return union.isEmpty();
+    }
+
+    /**
+     * Returns the tiles of the member at roster index {@code owner}.
+     */
+    public RegionTileSet getOwner(int owner) {
+        return owners[owner];
+    }
+
+    /**
+     * Returns a mask with bit {@code i} set when the member at roster index {@code i} owns the tile.
+     */
+    public long ownerMask(int x, int y, int plane) {
+        long mask = 0;
+        if (!union.contains(x, y, plane)) {
+            return mask;
+        }
+
+        for (int i = 0; i < Math.min(owners.length, MAX_MASK_OWNERS); i++) {
+            if (owners[i].contains(x, y, plane)) {
+                mask |= 1L << i;
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * Returns how many members own the tile.
+     */
+    public int ownerCount(int x, int y, int plane) {
+        if (!union.contains(x, y, plane)) {
+            return 0;
+        }
+
+        int count = 0;
+        for (RegionTileSet owner : owners) {
+            if (owner.contains(x, y, plane)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Returns the number of tiles on {@code plane} owned by more than one member.
+     */
+    public int overlapSize(int plane) {
+        int count = 0;
+        for (int y = 0; y < RegionTileSet.REGION_SIZE; y++) {
+            long seen = 0;
+            long shared = 0;
+            for (RegionTileSet owner : owners) {
+                long row = owner.row(plane, y);
+                shared |= seen & row;
+                seen |= row;
+            }
+            count += Long.bitCount(shared);
+        }
+        return count;
+    }
+}
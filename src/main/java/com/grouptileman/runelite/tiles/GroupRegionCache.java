@@ -0,0 +1,72 @@
+package com.grouptileman.runelite.tiles;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.IntFunction;
+
+/**
+ * Bounded LRU cache of {@link GroupRegion}s by region id. An entry is only returned for the roster it was
+ * loaded with, and is dropped when any member's tiles in its region change.
+ */
+public class GroupRegionCache {
+    private final int capacity;
+    private final Map<Integer, GroupRegion> entries;
+
+    // bumped on every invalidation so loads racing an invalidation don't cache stale regions
+    private long invalidations;
+
+    public GroupRegionCache(int capacity) {
+        this.capacity = capacity;
+        this.entries = new LinkedHashMap<Integer, GroupRegion>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, GroupRegion> eldest) {
+                return size() > GroupRegionCache.this.capacity;
+            }
+        };
+    }
+
+    /**
+     * Returns the cached region loaded for {@code roster}, or null if there is none.
+     */
+    public synchronized GroupRegion getIfPresent(int regionId, GroupRoster roster) {
+        GroupRegion region = entries.get(regionId);
+        return region != null && region.getRoster().equals(roster) ? region : null;
+    }
+
+    /**
+     * Returns the cached region loaded for {@code roster}, loading it outside of the cache lock otherwise.
+     */
+    public GroupRegion getOrLoad(int regionId, GroupRoster roster, IntFunction<GroupRegion> loader) {
+        final long stamp;
+        synchronized (this) {
+            GroupRegion region = entries.get(regionId);
+            if (region != null && region.getRoster().equals(roster)) {
+                return region;
+            }
+            stamp = invalidations;
+        }
+
+        GroupRegion region = loader.apply(regionId);
+
+        synchronized (this) {
+            if (invalidations == stamp) {
+                entries.put(regionId, region);
+            }
+        }
+        return region;
+    }
+
+    public synchronized void invalidate(int regionId) {
+        invalidations++;
+        entries.remove(regionId);
+    }
+
+    public synchronized void clear() {
+        invalidations++;
+        entries.clear();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+}
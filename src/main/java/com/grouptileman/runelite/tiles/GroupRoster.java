@@ -0,0 +1,85 @@
+package com.grouptileman.runelite.tiles;
+
+import lombok.EqualsAndHashCode;
+
+import java.util.*;
+
+/**
+ * The group members from {@code groupPlayerNames}, each with a dense index used to address per-owner data.
+ */
+@EqualsAndHashCode(of = "players")
+public final class GroupRoster {
+    public static final GroupRoster EMPTY = new GroupRoster(Collections.emptyList());
+
+    private final List<String> players;
+    private final Map<String, Integer> indices = new HashMap<>();
+
+    private GroupRoster(List<String> players) {
+        this.players = players;
+        for (int i = 0; i < players.size(); i++) {
+            indices.put(players.get(i), i);
+        }
+    }
+
+    /**
+     * Parses the comma separated roster, trimming names and dropping empty and repeated entries.
+     */
+    public static GroupRoster parse(String groupPlayerNames) {
+        if (groupPlayerNames == null) {
+            return EMPTY;
+        }
+        return of(Arrays.asList(groupPlayerNames.split(",")));
+    }
+
+    public static GroupRoster of(Collection<String> names) {
+        Set<String> players = new LinkedHashSet<>();
+        for (String player : names) {
+            player = player.trim();
+            if (!player.isEmpty()) {
+                players.add(player);
+            }
+        }
+        return players.isEmpty() ? EMPTY : new GroupRoster(Collections.unmodifiableList(new ArrayList<>(players)));
+    }
+
+    public List<String> getPlayers() {
+        return players;
+    }
+
+    public int size() {
+        return players.size();
+    }
+
+    public String getPlayer(int index) {
+        return players.get(index);
+    }
+
+    /**
+     * Returns the index of {@code player}, or -1 if they are not in the group.
+     */
+    public int indexOf(String player) {
+        Integer index = indices.get(player);
+        return index == null ? -1 : index;
+    }
+
+    public boolean contains(String player) {
+        return indices.containsKey(player);
+    }
+
+    /**
+     * Returns the roster's spelling of {@code player}, matched ignoring case, or null if they are not in the group.
+     */
+    public String find(String player) {
+        for (String member : players) {
+            if (member.equalsIgnoreCase(player)) {
+                return member;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public String toString() {
+        return players.toString();
+    }
+}
@@ -0,0 +1,89 @@
+package com.grouptileman.runelite.tiles;
+
+import net.runelite.api.Constants;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Decodes the group's tiles of the regions the next scene load will need while the player is still walking
+ * towards it. The client loads a new scene, centred on the player, once they get close to the edge of the
+ * current one; when the player comes within {@link #EDGE_DISTANCE} tiles of an edge, the regions of a scene
+ * centred a little ahead of them that aren't loaded yet are handed to {@link TileLoader#prefetch}.
+ * <p>
+ * Only called on the client thread.
+ */
+@Singleton
+public class RegionPrefetcher {
+    // the client reloads the scene 16 tiles from its edge, start a few ticks of running earlier
+    static final int EDGE_DISTANCE = 24;
+    // how far ahead in the direction of travel the next scene is expected to be centred
+    static final int LOOKAHEAD = 8;
+    private static final int SCENE_RADIUS = Constants.SCENE_SIZE / 2;
+
+    private final TileLoader tileLoader;
+
+    private int[] mapRegions;
+    private int lastX;
+    private int lastY;
+    // regions already prefetched for the current scene
+    private final Set<Integer> requested = new HashSet<>();
+
+    @Inject
+    private RegionPrefetcher(TileLoader tileLoader) {
+        this.tileLoader = tileLoader;
+    }
+
+    /**
+     * Takes the player's position at a game tick in the scene of {@code mapRegions} based at {@code (baseX, baseY)}.
+     */
+    public void playerMoved(int x, int y, int baseX, int baseY, int[] mapRegions, GroupRoster roster) {
+        if (!Arrays.equals(mapRegions, this.mapRegions)) {
+            this.mapRegions = mapRegions.clone();
+            requested.clear();
+            lastX = x;
+            lastY = y;
+        }
+
+        final int directionX = Integer.signum(x - lastX);
+        final int directionY = Integer.signum(y - lastY);
+        lastX = x;
+        lastY = y;
+        if (roster.size() == 0 || !nearEdge(x - baseX, y - baseY)) {
+            return;
+        }
+
+        for (int regionId : regionsAhead(x + directionX * LOOKAHEAD, y + directionY * LOOKAHEAD, mapRegions)) {
+            if (requested.add(regionId)) {
+                for (String player : roster.getPlayers()) {
+                    tileLoader.prefetch(player, regionId);
+                }
+            }
+        }
+    }
+
+    static boolean nearEdge(int sceneX, int sceneY) {
+        return sceneX < EDGE_DISTANCE || sceneY < EDGE_DISTANCE
+                || sceneX >= Constants.SCENE_SIZE - EDGE_DISTANCE || sceneY >= Constants.SCENE_SIZE - EDGE_DISTANCE;
+    }
+
+    /**
+     * Returns the regions of a scene centred on {@code (x, y)} that aren't in {@code loaded}.
+     */
+    static Set<Integer> regionsAhead(int x, int y, int[] loaded) {
+        final Set<Integer> regions = new LinkedHashSet<>();
+        for (int regionX = (x - SCENE_RADIUS) >> 6; regionX <= (x + SCENE_RADIUS - 1) >> 6; regionX++) {
+            for (int regionY = (y - SCENE_RADIUS) >> 6; regionY <= (y + SCENE_RADIUS - 1) >> 6; regionY++) {
+                regions.add((regionX << 8) | regionY);
+            }
+        }
+        for (int regionId : loaded) {
+            regions.remove(regionId);
+        }
+        return regions;
+    }
+}
@@ -0,0 +1,127 @@
+package com.grouptileman.runelite.tiles;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Bounded LRU cache of decoded region tiles, keyed by the {@code <player>-region_<id>} configuration key.
+ */
+public class RegionTileCache {
+    private final int capacity;
+    private final Map<String, RegionTileSet> entries;
+
+    // bumped on every invalidation so loads racing an invalidation don't cache stale tiles
+    private long invalidations;
+
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    public RegionTileCache(int capacity) {
+        this.capacity = capacity;
+        this.entries = new LinkedHashMap<String, RegionTileSet>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, RegionTileSet> eldest) {
+                if (size() > RegionTileCache.this.capacity) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    public synchronized RegionTileSet get(String key) {
+        RegionTileSet region = entries.get(key);
+        if (region == null) {
+            misses++;
+        } else {
+            hits++;
+        }
+        return region;
+    }
+
+    /**
+     * Returns whether {@code key} is cached, without counting a hit or miss or touching its recency.
+     */
+    public synchronized boolean contains(String key) {
+        return entries.containsKey(key);
+    }
+
+    /**
+     * Removes and returns the cached region for {@code key}, or null.
+     */
+    public synchronized RegionTileSet take(String key) {
+        RegionTileSet region = entries.remove(key);
+        if (region == null) {
+            misses++;
+        } else {
+            hits++;
+        }
+        return region;
+    }
+
+    public synchronized void put(String key, RegionTileSet region) {
+        entries.put(key, region);
+    }
+
+    /**
+     * Returns the cached region for {@code key}, loading it outside of the cache lock on a miss.
+     */
+    public RegionTileSet getOrLoad(String key, Function<String, RegionTileSet> loader) {
+        final long stamp;
+        synchronized (this) {
+            RegionTileSet region = get(key);
+            if (region != null) {
+                return region;
+            }
+            stamp = invalidations;
+        }
+
+        RegionTileSet region = loader.apply(key);
+
+        synchronized (this) {
+            if (invalidations == stamp) {
+                entries.put(key, region);
+            }
+        }
+        return region;
+    }
+
+    public synchronized void invalidate(String key) {
+        invalidations++;
+        entries.remove(key);
+    }
+
+    public synchronized void clear() {
+        invalidations++;
+        entries.clear();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "RegionTileCache{size=" + entries.size() + "/" + capacity
+                + ", hits=" + hits + ", misses=" + misses + ", evictions=" + evictions + "}";
+    }
+}
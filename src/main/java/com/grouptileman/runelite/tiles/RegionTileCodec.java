@@ -0,0 +1,139 @@
+package com.grouptileman.runelite.tiles;
+
+import com.google.common.base.Strings;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+
+/**
+ * Converts between the stored {@code List<Tile>} JSON and {@link RegionTileSet}, streaming the JSON
+ * so no intermediate {@code Tile} objects are created.
+ */
+@Slf4j
+public final class RegionTileCodec {
+    private RegionTileCodec() {
+    }
+
+    public static RegionTileSet decode(int regionId, String json) {
+        if (Strings.isNullOrEmpty(json)) {
+            return new RegionTileSet(regionId);
+        }
+
+        try (JsonReader reader = new JsonReader(new StringReader(json))) {
+            return read(reader, regionId);
+        } catch (IOException | IllegalStateException | NumberFormatException e) {
+            log.warn("Ignoring malformed tiles for region {}", regionId, e);
+            return new RegionTileSet(regionId);
+        }
+    }
+
+    /**
+     * Reads a {@code List<Tile>} array from {@code reader}, dropping tiles outside of {@code regionId}
+     * or with out of range coordinates.
+     */
+    public static RegionTileSet read(JsonReader reader, int regionId) throws IOException {
+        RegionTileSet region = new RegionTileSet(regionId);
+        if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull();
+            return region;
+        }
+
+        int invalid = 0;
+        reader.beginArray();
+        while (reader.hasNext()) {
+            int tileRegionId = -1;
+            int x = -1;
+            int y = -1;
+            int z = -1;
+
+            reader.beginObject();
+            while (reader.hasNext()) {
+                switch (reader.nextName()) {
+                    case "regionId":
+                        tileRegionId = reader.nextInt();
+                        break;
+                    case "regionX":
+                        x = reader.nextInt();
+                        break;
+                    case "regionY":
+                        y = reader.nextInt();
+                        break;
+                    case "z":
+                        z = reader.nextInt();
+                        break;
+                    default:
+                        reader.skipValue();
+                }
+            }
+            reader.endObject();
+
+            if (tileRegionId == regionId && RegionTileSet.isValid(x, y, z)) {
+                region.add(x, y, z);
+            } else {
+                invalid++;
+            }
+        }
+        reader.endArray();
+
+        if (invalid > 0) {
+            log.debug("Dropped {} invalid tiles in region {}", invalid, regionId);
+        }
+        return region;
+    }
+
+    public static String encode(RegionTileSet region) {
+        StringWriter out = new StringWriter(region.size() * 48 + 2);
+        try (JsonWriter writer = new JsonWriter(out)) {
+            write(writer, region);
+        } catch (IOException e) {
+            // StringWriter doesn't throw
+            throw new UncheckedIOException(e);
+        }
+        return out.toString();
+    }
+
+    /**
+     * Writes {@code region} as the {@code List<Tile>} array Gson would produce.
+     */
+    public static void write(JsonWriter writer, RegionTileSet region) throws IOException {
+        final int regionId = region.getRegionId();
+        writer.beginArray();
+        for (int plane = 0; plane < RegionTileSet.PLANES; plane++) {
+            for (int y = 0; y < RegionTileSet.REGION_SIZE; y++) {
+                long bits = region.row(plane, y);
+                while (bits != 0) {
+                    writer.beginObject()
+                            .name("regionId").value(regionId)
+                            .name("regionX").value(Long.numberOfTrailingZeros(bits))
+                            .name("regionY").value(y)
+                            .name("z").value(plane)
+                            .endObject();
+                    bits &= bits - 1;
+                }
+            }
+        }
+        writer.endArray();
+    }
+
+    /**
+     * Parses the region id out of a {@code region_<id>} or {@code <player>-region_<id>} key, or returns -1.
+     */
+    public static int parseRegionId(String key, String regionPrefix) {
+        int index = key.lastIndexOf(regionPrefix);
+        if (index < 0) {
+            return -1;
+        }
+
+        try {
+            return Integer.parseInt(key.substring(index + regionPrefix.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,239 @@
+package com.grouptileman.runelite.tiles;
+
+import com.grouptileman.runelite.config.Tile;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Bitset of the marked tiles in a single 64x64 region, across all four planes.
+ * Each row of a plane is one {@code long}, with bit {@code x} set when tile {@code (x, y)} is marked.
+ */
+public class RegionTileSet {
+    public static final int REGION_SIZE = 64;
+    public static final int PLANES = 4;
+    public static final int CHUNK_SIZE = 8;
+    public static final int CHUNKS = REGION_SIZE / CHUNK_SIZE;
+
+    private final int regionId;
+    private final long[] rows = new long[PLANES * REGION_SIZE];
+    // tiles in each 8x8 chunk of each plane, kept up to date by every change for drawing coverage
+    private final byte[] chunkTiles = new byte[PLANES * CHUNKS * CHUNKS];
+    private int size;
+    // rectangles of each plane, computed on first use and dropped on any change
+    private volatile int[][] rectangles;
+
+    public RegionTileSet(int regionId) {
+        this.regionId = regionId;
+    }
+
+    public static RegionTileSet fromTiles(int regionId, Collection<Tile> tiles) {
+        RegionTileSet set = new RegionTileSet(regionId);
+        for (Tile tile : tiles) {
+            // tiles are stored per region, anything else is corrupt data
+            if (tile.getRegionId() == regionId && isValid(tile.getRegionX(), tile.getRegionY(), tile.getZ())) {
+                set.add(tile.getRegionX(), tile.getRegionY(), tile.getZ());
+            }
+        }
+        return set;
+    }
+
+    public static boolean isValid(int x, int y, int plane) {
+        return x >= 0 && x < REGION_SIZE && y >= 0 && y < REGION_SIZE && plane >= 0 && plane < PLANES;
+    }
+
+    public static int regionId(int worldX, int worldY) {
+        return ((worldX >> 6) << 8) | (worldY >> 6);
+    }
+
+    public static int baseX(int regionId) {
+        return (regionId >> 8) << 6;
+    }
+
+    public static int baseY(int regionId) {
+        return (regionId & 0xFF) << 6;
+    }
+
+    public int getRegionId() {
+        return regionId;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the number of tiles on {@code plane}.
+     */
+    public int size(int plane) {
+        int count = 0;
+        for (int y = 0; y < REGION_SIZE; y++) {
+            count += Long.bitCount(rows[plane * REGION_SIZE + y]);
+        }
+        return count;
+    }
+
+    /**
+     * Returns the number of tiles, up to 64, in the 8x8 chunk {@code (chunkX, chunkY)} of {@code plane}.
+     */
+    public int chunkSize(int chunkX, int chunkY, int plane) {
+        return chunkTiles[(plane * CHUNKS + chunkY) * CHUNKS + chunkX];
+    }
+
+    private static int chunkIndex(int x, int y, int plane) {
+        return (plane * CHUNKS + y / CHUNK_SIZE) * CHUNKS + x / CHUNK_SIZE;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean contains(int x, int y, int plane) {
+        return (rows[plane * REGION_SIZE + y] & (1L << x)) != 0;
+    }
+
+    public boolean add(int x, int y, int plane) {
+        int index = plane * REGION_SIZE + y;
+        long bit = 1L << x;
+        if ((rows[index] & bit) != 0) {
+            return false;
+        }
+        rows[index] |= bit;
+        size++;
+        chunkTiles[chunkIndex(x, y, plane)]++;
+        invalidateRectangles();
+        return true;
+    }
+
+    public boolean remove(int x, int y, int plane) {
+        int index = plane * REGION_SIZE + y;
+        long bit = 1L << x;
+        if ((rows[index] & bit) == 0) {
+            return false;
+        }
+        rows[index] &= ~bit;
+        size--;
+        chunkTiles[chunkIndex(x, y, plane)]--;
+        invalidateRectangles();
+        return true;
+    }
+
+    /**
+     * Adds every tile of {@code other} to this set.
+     */
+    public void addAll(RegionTileSet other) {
+        boolean changed = false;
+        for (int i = 0; i < rows.length; i++) {
+            long added = other.rows[i] & ~rows[i];
+            if (added != 0) {
+                addBits(i, added);
+                changed = true;
+            }
+        }
+        if (changed) {
+            invalidateRectangles();
+        }
+    }
+
+    /**
+     * Marks every tile whose bit is set in {@code bits}, a row as returned by {@link #row}.
+     */
+    public void addRow(int plane, int y, long bits) {
+        int index = plane * REGION_SIZE + y;
+        long added = bits & ~rows[index];
+        if (added != 0) {
+            addBits(index, added);
+            invalidateRectangles();
+        }
+    }
+
+    private void addBits(int index, long added) {
+        rows[index] |= added;
+        size += Long.bitCount(added);
+        int chunkRow = (index / REGION_SIZE) * CHUNKS * CHUNKS + (index % REGION_SIZE) / CHUNK_SIZE * CHUNKS;
+        for (int chunkX = 0; chunkX < CHUNKS; chunkX++) {
+            long chunkBits = (added >>> (chunkX * CHUNK_SIZE)) & 0xFF;
+            if (chunkBits != 0) {
+                chunkTiles[chunkRow + chunkX] += Long.bitCount(chunkBits);
+            }
+        }
+    }
+
+    /**
+     * Returns the bits of row {@code y} on {@code plane}, bit {@code x} set for each marked tile.
+     */
+    public long row(int plane, int y) {
+        return rows[plane * REGION_SIZE + y];
+    }
+
+    /**
+     * Returns the tiles of {@code plane} as packed {@link TileRectangles}. The result is cached until the set
+     * changes and must not be modified.
+     */
+    public int[] rectangles(int plane) {
+        int[][] cached = rectangles;
+        if (cached != null && cached[plane] != null) {
+            return cached[plane];
+        }
+
+        int[][] updated = cached == null ? new int[PLANES][] : cached.clone();
+        updated[plane] = TileRectangles.decompose(rows, plane * REGION_SIZE);
+        rectangles = updated;
+        return updated[plane];
+    }
+
+    private void invalidateRectangles() {
+        // sets are filled tile by tile before anyone asks for rectangles, keep those adds free of volatile writes
+        if (rectangles != null) {
+            rectangles = null;
+        }
+    }
+
+    /**
+     * Returns a 64-bit hash of the marked tiles, 0 for an empty set. Equal sets of the same region always hash equally.
+     */
+    public long contentHash() {
+        if (size == 0) {
+            return 0;
+        }
+
+        long hash = mix(regionId);
+        for (int i = 0; i < rows.length; i++) {
+            if (rows[i] != 0) {
+                hash = (hash ^ mix(rows[i] + i * 0x9E3779B97F4A7C15L)) * 0x100000001B3L;
+            }
+        }
+        return hash == 0 ? 1 : hash;
+    }
+
+    // murmur3 finalizer
+    private static long mix(long value) {
+        value = (value ^ (value >>> 33)) * 0xFF51AFD7ED558CCDL;
+        value = (value ^ (value >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        return value ^ (value >>> 33);
+    }
+
+    public void forEach(TileVisitor visitor) {
+        for (int plane = 0; plane < PLANES; plane++) {
+            forEachOnPlane(plane, visitor);
+        }
+    }
+
+    public void forEachOnPlane(int plane, TileVisitor visitor) {
+        int offset = plane * REGION_SIZE;
+        for (int y = 0; y < REGION_SIZE; y++) {
+            long bits = rows[offset + y];
+            while (bits != 0) {
+                visitor.visit(Long.numberOfTrailingZeros(bits), y, plane);
+                bits &= bits - 1;
+            }
+        }
+    }
+
+    public List<Tile> toTiles() {
+        List<Tile> tiles = new ArrayList<>(size);
+        forEach((x, y, plane) -> tiles.add(new Tile(regionId, x, y, plane)));
+        return tiles;
+    }
+}
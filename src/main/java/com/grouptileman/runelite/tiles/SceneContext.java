@@ -0,0 +1,154 @@
+package com.grouptileman.runelite.tiles;
+
+import lombok.Getter;
+import net.runelite.api.Client;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Copy of the client state needed to load and translate tiles for a scene, captured on the client
+ * thread so the translation itself can run anywhere.
+ */
+public class SceneContext {
+    private static final int CHUNK_SIZE = 8;
+
+    @Getter
+    private final int[] mapRegions;
+    @Getter
+    private final boolean instanced;
+    private final int baseX;
+    private final int baseY;
+    // instance chunks showing each template chunk, keyed by the template's plane, see instanceChunkKey and instanceChunk
+    private final Map<Integer, int[]> instanceChunks;
+
+    public SceneContext(int[] mapRegions, boolean instanced, int[][][] instanceTemplateChunks, int baseX, int baseY) {
+        this.mapRegions = mapRegions;
+        this.instanced = instanced;
+        this.baseX = baseX;
+        this.baseY = baseY;
+        this.instanceChunks = instanced ? indexInstanceChunks(instanceTemplateChunks) : Collections.emptyMap();
+    }
+
+    /**
+     * Captures the current scene, or returns null when no scene is loaded. Must be called on the client thread.
+     */
+    public static SceneContext capture(Client client) {
+        int[] mapRegions = client.getMapRegions();
+        if (mapRegions == null) {
+            return null;
+        }
+
+        // the template chunks are indexed in the constructor, so the client's arrays needn't be copied
+        boolean instanced = client.isInInstancedRegion();
+        return new SceneContext(mapRegions.clone(), instanced, instanced ? client.getInstanceTemplateChunks() : null,
+                client.getBaseX(), client.getBaseY());
+    }
+
+    /**
+     * Maps each template chunk to the instance chunks showing it, so translating a tile is one lookup
+     * instead of a scan of every instance chunk.
+     */
+    private static Map<Integer, int[]> indexInstanceChunks(int[][][] instanceTemplateChunks) {
+        Map<Integer, int[]> chunks = new HashMap<>();
+        for (int plane = 0; plane < instanceTemplateChunks.length; plane++) {
+            for (int x = 0; x < instanceTemplateChunks[plane].length; x++) {
+                for (int y = 0; y < instanceTemplateChunks[plane][x].length; y++) {
+                    int chunkData = instanceTemplateChunks[plane][x][y];
+                    int rotation = chunkData >> 1 & 0x3;
+                    int templateChunkY = chunkData >> 3 & 0x7FF;
+                    int templateChunkX = chunkData >> 14 & 0x3FF;
+                    int templatePlane = chunkData >> 24 & 0x3;
+
+                    // a chunk may show a template chunk of another plane, like a room on an upper floor
+                    int key = instanceChunkKey(templatePlane, templateChunkX, templateChunkY);
+                    int[] previous = chunks.get(key);
+                    int[] targets = previous == null ? new int[1] : Arrays.copyOf(previous, previous.length + 1);
+                    targets[targets.length - 1] = instanceChunk(plane, x, y, rotation);
+                    chunks.put(key, targets);
+                }
+            }
+        }
+        return chunks;
+    }
+
+    private static int instanceChunkKey(int plane, int templateChunkX, int templateChunkY) {
+        if (templateChunkX > 0x3FF || templateChunkY > 0x7FF) {
+            // outside of what an instance can reference
+            return -1;
+        }
+        return plane << 21 | templateChunkX << 11 | templateChunkY;
+    }
+
+    private static int instanceChunk(int plane, int chunkX, int chunkY, int rotation) {
+        return plane << 24 | chunkX << 16 | chunkY << 8 | rotation;
+    }
+
+    public boolean containsRegion(int regionId) {
+        for (int mapRegion : mapRegions) {
+            if (mapRegion == regionId) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Adds the tiles of {@code region} to {@code into}, translated into the instance when the scene is instanced.
+     * Matches {@code WorldPoint.toLocalInstance}.
+     */
+    public void translate(RegionTileSet region, WorldTileSet into) {
+        if (region.isEmpty()) {
+            return;
+        }
+
+        if (!instanced) {
+            into.addAll(region);
+            return;
+        }
+
+        final int regionChunkX = RegionTileSet.baseX(region.getRegionId()) / CHUNK_SIZE;
+        final int regionChunkY = RegionTileSet.baseY(region.getRegionId()) / CHUNK_SIZE;
+        final int chunksPerSide = RegionTileSet.REGION_SIZE / CHUNK_SIZE;
+        for (int plane = 0; plane < RegionTileSet.PLANES; plane++) {
+            for (int chunkY = 0; chunkY < chunksPerSide; chunkY++) {
+                for (int chunkX = 0; chunkX < chunksPerSide; chunkX++) {
+                    int[] targets = instanceChunks.get(instanceChunkKey(plane, regionChunkX + chunkX, regionChunkY + chunkY));
+                    if (targets != null) {
+                        translateChunk(region, plane, chunkX, chunkY, targets, into);
+                    }
+                }
+            }
+        }
+    }
+
+    private void translateChunk(RegionTileSet region, int plane, int chunkX, int chunkY, int[] targets, WorldTileSet into) {
+        for (int localY = 0; localY < CHUNK_SIZE; localY++) {
+            long bits = (region.row(plane, chunkY * CHUNK_SIZE + localY) >>> (chunkX * CHUNK_SIZE)) & 0xFF;
+            while (bits != 0) {
+                int localX = Long.numberOfTrailingZeros(bits);
+                for (int target : targets) {
+                    int x = baseX + (target >> 16 & 0xFF) * CHUNK_SIZE;
+                    int y = baseY + (target >> 8 & 0xFF) * CHUNK_SIZE;
+                    int instancePlane = target >> 24;
+                    switch (target & 0x3) {
+                        case 1:
+                            into.add(x + localY, y + (CHUNK_SIZE - 1 - localX), instancePlane);
+                            break;
+                        case 2:
+                            into.add(x + (CHUNK_SIZE - 1 - localX), y + (CHUNK_SIZE - 1 - localY), instancePlane);
+                            break;
+                        case 3:
+                            into.add(x + (CHUNK_SIZE - 1 - localY), y + localX, instancePlane);
+                            break;
+                        default:
+                            into.add(x + localX, y + localY, instancePlane);
+                    }
+                }
+                bits &= bits - 1;
+            }
+        }
+    }
+}
@@ -0,0 +1,404 @@
+package com.grouptileman.runelite.tiles;
+
+import com.grouptileman.runelite.metrics.TileMetrics;
+import com.grouptileman.runelite.tiles.store.ConfigTileStore;
+import com.grouptileman.runelite.tiles.store.FileTileStore;
+import com.grouptileman.runelite.tiles.store.TileStore;
+import lombok.extern.slf4j.Slf4j;
+import net.runelite.client.config.ConfigManager;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static com.grouptileman.GroupTilemanAddon.REGION_PREFIX;
+
+/**
+ * Loads group tiles off the client thread. Each load reads the tile store, translates the regions and
+ * indexes them into a new {@link TileSnapshot}, which is then published atomically.
+ * Loads run one at a time on the executor, in the order they were requested.
+ */
+@Slf4j
+@Singleton
+public class TileLoader {
+    private static final int MAX_CACHED_REGIONS = 1024;
+    // a decoded region is about 2.3KB, so prefetched tiles stay under 600KB
+    private static final int MAX_PREFETCHED_REGIONS = 256;
+
+    // the store used until a file store is opened, and again after it is closed
+    private final TileStore fallbackStore;
+    private final Executor executor;
+    private volatile TileStore store;
+
+    private final List<TileStore.Listener> listeners = new CopyOnWriteArrayList<>();
+
+    private final Object batchLock = new Object();
+    private int batchDepth;
+    // regions of each player changed while a batch was open
+    private Map<String, Set<Integer>> batchedSlices = new HashMap<>();
+
+    private final RegionTileCache tileCache = new RegionTileCache(MAX_CACHED_REGIONS);
+    // decoded ahead of a scene load, kept apart so they never evict the tiles of the loaded scene
+    private final RegionTileCache prefetched = new RegionTileCache(MAX_PREFETCHED_REGIONS);
+    private final GroupRegionCache groupRegions = new GroupRegionCache(MAX_CACHED_REGIONS);
+    // group regions scheduled by getLoadedGroupRegion and not loaded yet
+    private final Set<Integer> pendingGroupRegions = ConcurrentHashMap.newKeySet();
+    private final TileMetrics metrics = new TileMetrics();
+    private final AtomicReference<TileSnapshot> snapshot = new AtomicReference<>(TileSnapshot.EMPTY);
+
+    @Inject
+    private TileLoader(ConfigManager configManager, ScheduledExecutorService executor) {
+        this(new ConfigTileStore(configManager), executor);
+    }
+
+    /**
+     * Creates a loader over an arbitrary tile store, for benchmarks and tests.
+     */
+    public TileLoader(TileStore store, Executor executor) {
+        this.fallbackStore = store;
+        this.store = store;
+        this.executor = executor;
+        store.setListener(this::regionChanged);
+    }
+
+    public TileSnapshot getSnapshot() {
+        return snapshot.get();
+    }
+
+    public RegionTileCache getTileCache() {
+        return tileCache;
+    }
+
+    public TileMetrics getMetrics() {
+        return metrics;
+    }
+
+    public TileStore getStore() {
+        return store;
+    }
+
+    public static String regionKey(String player, int regionId) {
+        return player + "-" + REGION_PREFIX + regionId;
+    }
+
+    /**
+     * Returns the decoded, untranslated tiles of {@code player} in {@code regionId}. Safe to call from any thread.
+     */
+    public RegionTileSet getTiles(String player, int regionId) {
+        if (player == null || player.isEmpty()) throw new NullPointerException("Empty player");
+        return tileCache.getOrLoad(regionKey(player, regionId), key -> {
+            RegionTileSet region = prefetched.take(key);
+            if (region != null) {
+                metrics.counter(TileMetrics.PREFETCH_USED).incrementAndGet();
+                return region;
+            }
+            return decode(player, regionId);
+        });
+    }
+
+    /**
+     * Schedules decoding {@code player}'s tiles in {@code regionId} ahead of a load that is expected to need
+     * them. Only a bounded number of prefetched regions is kept, the least recently prefetched are dropped.
+     */
+    public void prefetch(String player, int regionId) {
+        executor.execute(() -> {
+            final String key = regionKey(player, regionId);
+            if (tileCache.contains(key) || prefetched.contains(key)) {
+                return;
+            }
+            prefetched.getOrLoad(key, k -> decode(player, regionId));
+            metrics.counter(TileMetrics.PREFETCHED).incrementAndGet();
+        });
+    }
+
+    private RegionTileSet decode(String player, int regionId) {
+        RegionTileSet region = store.load(player, regionId);
+        metrics.counter(TileMetrics.REGIONS_DECODED).incrementAndGet();
+        metrics.counter(TileMetrics.TILES_DECODED).addAndGet(region.size());
+        return region;
+    }
+
+    /**
+     * Returns the untranslated tiles of the whole group in {@code regionId}. Safe to call from any thread.
+     */
+    public GroupRegion getGroupRegion(GroupRoster roster, int regionId) {
+        return groupRegions.getOrLoad(regionId, roster, id -> GroupRegion.load(id, roster, player -> getTiles(player, id)));
+    }
+
+    /**
+     * Returns the cached tiles of the whole group in {@code regionId}, or null after scheduling their load on
+     * the executor. Unlike {@link #getGroupRegion} it never reads the store on the calling thread, so it is
+     * what the client thread uses.
+     */
+    public GroupRegion getLoadedGroupRegion(GroupRoster roster, int regionId) {
+        GroupRegion region = groupRegions.getIfPresent(regionId, roster);
+        if (region != null || !pendingGroupRegions.add(regionId)) {
+            return region;
+        }
+
+        executor.execute(() -> {
+            try {
+                getGroupRegion(roster, regionId);
+            } finally {
+                pendingGroupRegions.remove(regionId);
+            }
+        });
+        // already there if the executor ran it in place
+        return groupRegions.getIfPresent(regionId, roster);
+    }
+
+    /**
+     * Replaces the stored tiles of {@code player} in the region of {@code region}; the loaded tiles follow
+     * once the store announces the write.
+     */
+    public void save(String player, RegionTileSet region) {
+        store.save(player, region);
+    }
+
+    public void invalidate(String key) {
+        tileCache.invalidate(key);
+        prefetched.invalidate(key);
+        int regionId = RegionTileCodec.parseRegionId(key, REGION_PREFIX);
+        if (regionId >= 0) {
+            groupRegions.invalidate(regionId);
+        }
+    }
+
+    /**
+     * Schedules a full load of every member's tiles for {@code scene}.
+     */
+    public void reload(SceneContext scene, GroupRoster roster) {
+        executor.execute(() -> {
+            final long start = System.nanoTime();
+            final TileSnapshot base = snapshot.get();
+            if (scene == null) {
+                publish(base, new TileSnapshot(base.getVersion() + 1, null, roster, Collections.emptyMap(), new WorldTileSet()));
+                return;
+            }
+
+            final Map<String, WorldTileSet> slices = new HashMap<>();
+            final WorldTileSet points = new WorldTileSet();
+            for (final String player : roster.getPlayers()) {
+                for (int regionId : scene.getMapRegions()) {
+                    log.debug("Loading points for region {}", regionId);
+                    WorldTileSet slice = new WorldTileSet();
+                    scene.translate(getTiles(player, regionId), slice);
+                    slices.put(regionKey(player, regionId), slice);
+                    for (RegionTileSet region : slice.getRegions()) {
+                        points.addAll(region);
+                    }
+                }
+            }
+
+            publish(base, new TileSnapshot(base.getVersion() + 1, scene, roster,
+                    Collections.unmodifiableMap(slices), points));
+            metrics.timer(TileMetrics.RELOAD).record(System.nanoTime() - start);
+        });
+    }
+
+    /**
+     * Schedules a reload of a single player's region, rebuilding only the scene regions it touches. Inside a
+     * batch the region is only recorded, and reloaded with the rest of the batch when it ends.
+     */
+    public void reloadSlice(String player, int regionId) {
+        synchronized (batchLock) {
+            if (batchDepth > 0) {
+                batchedSlices.computeIfAbsent(player, p -> new HashSet<>()).add(regionId);
+                return;
+            }
+        }
+
+        executor.execute(() -> reloadSlices(Collections.singletonMap(player, Collections.singleton(regionId))));
+    }
+
+    /**
+     * Starts a batch of writes. Until the matching {@link #endBatch()}, changed regions are collected instead
+     * of reloaded, so bulk writes such as imports rebuild the loaded tiles once rather than once per region.
+     * Batches may nest; the reload happens when the outermost one ends.
+     */
+    public void beginBatch() {
+        synchronized (batchLock) {
+            batchDepth++;
+        }
+    }
+
+    public void endBatch() {
+        final Map<String, Set<Integer>> changed;
+        synchronized (batchLock) {
+            if (batchDepth == 0) throw new IllegalStateException("No batch in progress");
+            if (--batchDepth > 0 || batchedSlices.isEmpty()) {
+                return;
+            }
+            changed = batchedSlices;
+            batchedSlices = new HashMap<>();
+        }
+
+        log.debug("Batch changed {} players' regions", changed.size());
+        executor.execute(() -> reloadSlices(changed));
+    }
+
+    /**
+     * Re-translates the given regions of each player and rebuilds the scene regions they touch, publishing
+     * one snapshot for all of them.
+     */
+    private void reloadSlices(Map<String, ? extends Collection<Integer>> changed) {
+        final TileSnapshot base = snapshot.get();
+        final SceneContext scene = base.getScene();
+        if (scene == null) {
+            return;
+        }
+
+        final long start = System.nanoTime();
+        final Map<String, WorldTileSet> slices = new HashMap<>(base.getSlices());
+        // instanced regions can translate into several scene regions, rebuild each one they touch
+        final Set<Integer> affected = new HashSet<>();
+        int reloaded = 0;
+        for (Map.Entry<String, ? extends Collection<Integer>> entry : changed.entrySet()) {
+            final String player = entry.getKey();
+            if (!base.getRoster().contains(player)) {
+                continue;
+            }
+
+            for (int regionId : entry.getValue()) {
+                if (!scene.containsRegion(regionId)) {
+                    continue;
+                }
+
+                log.debug("Reloading points for {} in region {}", player, regionId);
+                WorldTileSet slice = new WorldTileSet();
+                scene.translate(getTiles(player, regionId), slice);
+                WorldTileSet previous = slices.put(regionKey(player, regionId), slice);
+                reloaded++;
+
+                for (RegionTileSet region : slice.getRegions()) {
+                    affected.add(region.getRegionId());
+                }
+                if (previous != null) {
+                    for (RegionTileSet region : previous.getRegions()) {
+                        affected.add(region.getRegionId());
+                    }
+                }
+            }
+        }
+
+        if (reloaded == 0) {
+            return;
+        }
+
+        final WorldTileSet points = new WorldTileSet(base.getPoints());
+        for (int affectedRegionId : affected) {
+            RegionTileSet merged = new RegionTileSet(affectedRegionId);
+            for (WorldTileSet other : slices.values()) {
+                RegionTileSet region = other.getRegion(affectedRegionId);
+                if (region != null) {
+                    merged.addAll(region);
+                }
+            }
+            points.replaceRegion(merged);
+        }
+
+        publish(base, new TileSnapshot(base.getVersion() + 1, scene, base.getRoster(),
+                Collections.unmodifiableMap(slices), points));
+        metrics.timer(TileMetrics.RELOAD_SLICE).record(System.nanoTime() - start);
+    }
+
+    /**
+     * Schedules switching to the tile files in {@code directory}, moving any tiles still in the fallback config
+     * store into them first. Loads scheduled afterwards read the files; if the directory can't be used the
+     * tiles stay in the config.
+     */
+    public void openFileStore(Path directory) {
+        executor.execute(() -> {
+            final FileTileStore fileStore;
+            try {
+                fileStore = FileTileStore.open(directory);
+            } catch (IOException e) {
+                log.warn("Unable to open the tile store in {}, keeping tiles in the config", directory, e);
+                return;
+            }
+
+            if (fallbackStore instanceof ConfigTileStore) {
+                beginBatch();
+                try {
+                    int migrated = ((ConfigTileStore) fallbackStore).migrateTo(fileStore);
+                    if (migrated > 0) {
+                        log.info("Moved {} regions from the config to {}", migrated, directory);
+                    }
+                } finally {
+                    endBatch();
+                }
+            }
+            useStore(fileStore);
+        });
+    }
+
+    /**
+     * Schedules closing the current store and going back to the fallback store.
+     */
+    public void closeStore() {
+        executor.execute(() -> useStore(fallbackStore));
+    }
+
+    private void useStore(TileStore next) {
+        final TileStore previous = store;
+        if (previous == next) {
+            return;
+        }
+
+        next.setListener(this::regionChanged);
+        store = next;
+        tileCache.clear();
+        prefetched.clear();
+        groupRegions.clear();
+        previous.setListener(null);
+        if (previous != fallbackStore) {
+            previous.close();
+        }
+    }
+
+    /**
+     * Called after a region of a player was written: drops its cached tiles, reloads its slice and tells the
+     * listeners added with {@link #addListener}.
+     */
+    public void regionChanged(String player, int regionId) {
+        tileCache.invalidate(regionKey(player, regionId));
+        prefetched.invalidate(regionKey(player, regionId));
+        groupRegions.invalidate(regionId);
+        reloadSlice(player, regionId);
+        for (TileStore.Listener listener : listeners) {
+            listener.regionChanged(player, regionId);
+        }
+    }
+
+    public void addListener(TileStore.Listener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(TileStore.Listener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Drops the loaded tiles and any load still in flight.
+     */
+    public void clear() {
+        snapshot.set(new TileSnapshot(snapshot.get().getVersion() + 1, null, GroupRoster.EMPTY, Collections.emptyMap(), new WorldTileSet()));
+        log.debug("Tile cache stats: {}, prefetched: {}", tileCache, prefetched);
+        tileCache.clear();
+        prefetched.clear();
+        groupRegions.clear();
+    }
+
+    private void publish(TileSnapshot base, TileSnapshot next) {
+        if (!snapshot.compareAndSet(base, next)) {
+            log.debug("Discarding tile snapshot {}, superseded while loading", next.getVersion());
+        }
+    }
+}
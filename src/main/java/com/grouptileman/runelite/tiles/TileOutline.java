@@ -0,0 +1,130 @@
+package com.grouptileman.runelite.tiles;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Boundary of the marked tiles of one plane around a centre tile, as closed loops of tile corners.
+ * Only edges between a marked and an unmarked tile are kept, so filling the loops with the even-odd
+ * rule covers exactly the marked tiles and stroking them draws no internal edges.
+ */
+public class TileOutline {
+    // one loop per entry, corner world x at even and world y at odd indices
+    private final List<int[]> loops;
+    private final int tileCount;
+    private final int vertexCount;
+
+    private TileOutline(List<int[]> loops, int tileCount) {
+        this.loops = loops;
+        this.tileCount = tileCount;
+        int vertices = 0;
+        for (int[] loop : loops) {
+            vertices += loop.length / 2;
+        }
+        this.vertexCount = vertices;
+    }
+
+    /**
+     * Traces the marked tiles of {@code plane} within {@code range} of the centre, using the same
+     * distance as {@link WorldTileSet#forEachInRange}.
+     */
+    public static TileOutline trace(WorldTileSet tiles, int plane, int centerX, int centerY, int range) {
+        if (range <= 0) {
+            return new TileOutline(Collections.emptyList(), 0);
+        }
+
+        final int size = 2 * range - 1;
+        final int originX = centerX - range + 1;
+        final int originY = centerY - range + 1;
+        // padded by one tile on each side so edge tiles need no bounds checks
+        final int stride = size + 2;
+        final boolean[] marked = new boolean[stride * stride];
+        final int[] count = new int[1];
+        tiles.forEachInRange(plane, centerX, centerY, range, (x, y, z) -> {
+            marked[(x - originX + 1) * stride + (y - originY + 1)] = true;
+            count[0]++;
+        });
+
+        // directed boundary edges with the marked tile on their left, at most two leaving any corner
+        final int corners = size + 1;
+        final int[] next = new int[corners * corners * 2];
+        Arrays.fill(next, -1);
+        int edges = 0;
+        for (int x = 0; x < size; x++) {
+            for (int y = 0; y < size; y++) {
+                int cell = (x + 1) * stride + (y + 1);
+                if (!marked[cell]) {
+                    continue;
+                }
+                if (!marked[cell - 1]) {
+                    edges += addEdge(next, corner(corners, x, y), corner(corners, x + 1, y));
+                }
+                if (!marked[cell + stride]) {
+                    edges += addEdge(next, corner(corners, x + 1, y), corner(corners, x + 1, y + 1));
+                }
+                if (!marked[cell + 1]) {
+                    edges += addEdge(next, corner(corners, x + 1, y + 1), corner(corners, x, y + 1));
+                }
+                if (!marked[cell - stride]) {
+                    edges += addEdge(next, corner(corners, x, y + 1), corner(corners, x, y));
+                }
+            }
+        }
+
+        // every corner has as many boundary edges entering as leaving, so a walk always returns to its start
+        final List<int[]> loops = new ArrayList<>();
+        final int[] loop = new int[edges * 2];
+        for (int start = 0; start < corners * corners && edges > 0; start++) {
+            while (next[start * 2] != -1 || next[start * 2 + 1] != -1) {
+                int length = 0;
+                int current = start;
+                do {
+                    loop[length++] = originX + current / corners;
+                    loop[length++] = originY + current % corners;
+                    current = takeEdge(next, current);
+                    edges--;
+                } while (current != start);
+                loops.add(Arrays.copyOf(loop, length));
+            }
+        }
+
+        return new TileOutline(loops, count[0]);
+    }
+
+    private static int corner(int corners, int x, int y) {
+        return x * corners + y;
+    }
+
+    private static int addEdge(int[] next, int from, int to) {
+        next[next[from * 2] == -1 ? from * 2 : from * 2 + 1] = to;
+        return 1;
+    }
+
+    private static int takeEdge(int[] next, int from) {
+        int index = next[from * 2] != -1 ? from * 2 : from * 2 + 1;
+        int to = next[index];
+        next[index] = -1;
+        return to;
+    }
+
+    public List<int[]> getLoops() {
+        return loops;
+    }
+
+    /**
+     * Returns the number of marked tiles the outline encloses.
+     */
+    public int getTileCount() {
+        return tileCount;
+    }
+
+    public int getVertexCount() {
+        return vertexCount;
+    }
+
+    public boolean isEmpty() {
+        return loops.isEmpty();
+    }
+}
@@ -0,0 +1,71 @@
+package com.grouptileman.runelite.tiles;
+
+import java.util.Arrays;
+
+/**
+ * Greedy decomposition of a plane of region tiles into non-overlapping axis aligned rectangles, so
+ * overlays can draw blob shaped territory with a handful of fills instead of one per tile.
+ * <p>
+ * Each rectangle is packed into an int, read back with {@link #x}, {@link #y}, {@link #width} and {@link #height}.
+ */
+public final class TileRectangles {
+    private static final int[] EMPTY = new int[0];
+    private static final int BITS = 6;
+    private static final int MASK = (1 << BITS) - 1;
+
+    private TileRectangles() {
+    }
+
+    /**
+     * Decomposes the 64 rows starting at {@code rows[offset]}, each with bit {@code x} set for a marked tile.
+     * Every marked tile is covered by exactly one rectangle.
+     */
+    public static int[] decompose(long[] rows, int offset) {
+        final long[] remaining = Arrays.copyOfRange(rows, offset, offset + RegionTileSet.REGION_SIZE);
+        int[] rectangles = EMPTY;
+        int count = 0;
+
+        for (int y = 0; y < RegionTileSet.REGION_SIZE; y++) {
+            while (remaining[y] != 0) {
+                // widest run of the lowest remaining tile in this row, grown upwards while every row above holds it
+                final int x = Long.numberOfTrailingZeros(remaining[y]);
+                final int width = Long.numberOfTrailingZeros(~(remaining[y] >>> x));
+                final long run = width == Long.SIZE ? -1L : ((1L << width) - 1) << x;
+
+                int height = 1;
+                while (y + height < RegionTileSet.REGION_SIZE && (remaining[y + height] & run) == run) {
+                    remaining[y + height] &= ~run;
+                    height++;
+                }
+                remaining[y] &= ~run;
+
+                if (count == rectangles.length) {
+                    rectangles = Arrays.copyOf(rectangles, Math.max(8, count * 2));
+                }
+                rectangles[count++] = pack(x, y, width, height);
+            }
+        }
+
+        return count == rectangles.length ? rectangles : Arrays.copyOf(rectangles, count);
+    }
+
+    private static int pack(int x, int y, int width, int height) {
+        return x | y << BITS | (width - 1) << (2 * BITS) | (height - 1) << (3 * BITS);
+    }
+
+    public static int x(int rectangle) {
+        return rectangle & MASK;
+    }
+
+    public static int y(int rectangle) {
+        return rectangle >> BITS & MASK;
+    }
+
+    public static int width(int rectangle) {
+        return (rectangle >> (2 * BITS) & MASK) + 1;
+    }
+
+    public static int height(int rectangle) {
+        return (rectangle >> (3 * BITS) & MASK) + 1;
+    }
+}
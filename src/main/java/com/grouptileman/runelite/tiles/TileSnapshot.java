@@ -0,0 +1,22 @@
+package com.grouptileman.runelite.tiles;
+
+import lombok.Value;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Immutable result of a tile load. A published snapshot and the tile sets it references are never
+ * modified again; updates build a new snapshot that shares the unchanged regions.
+ */
+@Value
+public class TileSnapshot {
+    public static final TileSnapshot EMPTY = new TileSnapshot(0, null, GroupRoster.EMPTY, Collections.emptyMap(), new WorldTileSet());
+
+    long version;
+    SceneContext scene;
+    GroupRoster roster;
+    // translated tiles of each loaded (player, region) slice, keyed by configuration key
+    Map<String, WorldTileSet> slices;
+    WorldTileSet points;
+}
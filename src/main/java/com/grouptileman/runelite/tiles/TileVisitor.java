@@ -0,0 +1,6 @@
+package com.grouptileman.runelite.tiles;
+
+@FunctionalInterface
+public interface TileVisitor {
+    void visit(int x, int y, int plane);
+}
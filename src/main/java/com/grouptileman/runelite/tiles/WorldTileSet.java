@@ -0,0 +1,126 @@
+package com.grouptileman.runelite.tiles;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Set of marked tiles in world coordinates, stored as one {@link RegionTileSet} per region.
+ * The regions double as a uniform 64x64 grid, so range queries only touch the regions and rows they overlap.
+ */
+public class WorldTileSet {
+    private final Map<Integer, RegionTileSet> regions;
+
+    public WorldTileSet() {
+        regions = new HashMap<>();
+    }
+
+    /**
+     * Creates a copy sharing the region sets of {@code other}; only {@link #replaceRegion} may be used on it.
+     */
+    public WorldTileSet(WorldTileSet other) {
+        regions = new HashMap<>(other.regions);
+    }
+
+    public boolean add(int x, int y, int plane) {
+        int regionId = RegionTileSet.regionId(x, y);
+        return regions.computeIfAbsent(regionId, RegionTileSet::new).add(x & 63, y & 63, plane);
+    }
+
+    public boolean contains(int x, int y, int plane) {
+        RegionTileSet region = regions.get(RegionTileSet.regionId(x, y));
+        return region != null && region.contains(x & 63, y & 63, plane);
+    }
+
+    /**
+     * Adds every tile of {@code region} to this set.
+     */
+    public void addAll(RegionTileSet region) {
+        if (region.isEmpty()) {
+            return;
+        }
+        regions.computeIfAbsent(region.getRegionId(), RegionTileSet::new).addAll(region);
+    }
+
+    /**
+     * Replaces the tiles of {@code region}'s region, dropping the region entirely when it is empty.
+     */
+    public void replaceRegion(RegionTileSet region) {
+        if (region.isEmpty()) {
+            regions.remove(region.getRegionId());
+        } else {
+            regions.put(region.getRegionId(), region);
+        }
+    }
+
+    public RegionTileSet getRegion(int regionId) {
+        return regions.get(regionId);
+    }
+
+    public Collection<RegionTileSet> getRegions() {
+        return regions.values();
+    }
+
+    public int size() {
+        int size = 0;
+        for (RegionTileSet region : regions.values()) {
+            size += region.size();
+        }
+        return size;
+    }
+
+    public void clear() {
+        regions.clear();
+    }
+
+    /**
+     * Visits the tiles on {@code plane} whose distance (as in {@code WorldPoint.distanceTo}) to the
+     * center is less than {@code range}.
+     */
+    public void forEachInRange(int plane, int centerX, int centerY, int range, TileVisitor visitor) {
+        if (range <= 0 || regions.isEmpty()) {
+            return;
+        }
+
+        final int minX = Math.max(centerX - range + 1, 0);
+        final int maxX = centerX + range - 1;
+        final int minY = Math.max(centerY - range + 1, 0);
+        final int maxY = centerY + range - 1;
+
+        for (int regionX = minX >> 6; regionX <= maxX >> 6; regionX++) {
+            for (int regionY = minY >> 6; regionY <= maxY >> 6; regionY++) {
+                RegionTileSet region = regions.get((regionX << 8) | regionY);
+                if (region == null) {
+                    continue;
+                }
+
+                int baseX = regionX << 6;
+                int baseY = regionY << 6;
+                int fromX = Math.max(minX - baseX, 0);
+                int toX = Math.min(maxX - baseX, RegionTileSet.REGION_SIZE - 1);
+                int fromY = Math.max(minY - baseY, 0);
+                int toY = Math.min(maxY - baseY, RegionTileSet.REGION_SIZE - 1);
+                long mask = (-1L >>> (RegionTileSet.REGION_SIZE - 1 - toX)) & (-1L << fromX);
+
+                for (int y = fromY; y <= toY; y++) {
+                    long bits = region.row(plane, y) & mask;
+                    while (bits != 0) {
+                        visitor.visit(baseX + Long.numberOfTrailingZeros(bits), baseY + y, plane);
+                        bits &= bits - 1;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Visits every tile in world coordinates.
+     */
+    public void forEach(TileVisitor visitor) {
+        for (RegionTileSet region : regions.values()) {
+            int baseX = RegionTileSet.baseX(region.getRegionId());
+            int baseY = RegionTileSet.baseY(region.getRegionId());
+            region.forEach((x, y, plane) -> visitor.visit(baseX + x, baseY + y, plane));
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.grouptileman.runelite.tiles.store;
+
+import com.grouptileman.runelite.tiles.RegionTileCodec;
+import com.grouptileman.runelite.tiles.RegionTileSet;
+import com.grouptileman.runelite.tiles.TileLoader;
+import lombok.extern.slf4j.Slf4j;
+import net.runelite.client.config.ConfigManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static com.grouptileman.GroupTilemanAddon.CONFIG_GROUP;
+import static com.grouptileman.GroupTilemanAddon.REGION_PREFIX;
+
+/**
+ * Stores each region as the JSON {@code List<Tile>} under its {@code <player>-region_<id>} key of the
+ * plugin's config group. Writes are announced by the {@code ConfigChanged} they fire, not the listener.
+ */
+@Slf4j
+public class ConfigTileStore implements TileStore {
+    private final ConfigManager configManager;
+
+    public ConfigTileStore(ConfigManager configManager) {
+        this.configManager = configManager;
+    }
+
+    @Override
+    public RegionTileSet load(String player, int regionId) {
+        return RegionTileCodec.decode(regionId, configManager.getConfiguration(CONFIG_GROUP, TileLoader.regionKey(player, regionId)));
+    }
+
+    @Override
+    public Collection<Integer> regionIds(String player) {
+        final List<Integer> regionIds = new ArrayList<>();
+        for (String key : configManager.getConfigurationKeys(CONFIG_GROUP + "." + player + "-" + REGION_PREFIX)) {
+            int regionId = RegionTileCodec.parseRegionId(key, REGION_PREFIX);
+            if (regionId >= 0) {
+                regionIds.add(regionId);
+            }
+        }
+        return regionIds;
+    }
+
+    @Override
+    public void save(String player, RegionTileSet region) {
+        String key = TileLoader.regionKey(player, region.getRegionId());
+        if (region.isEmpty()) {
+            configManager.unsetConfiguration(CONFIG_GROUP, key);
+        } else {
+            configManager.setConfiguration(CONFIG_GROUP, key, RegionTileCodec.encode(region));
+        }
+    }
+
+    @Override
+    public void setListener(Listener listener) {
+    }
+
+    /**
+     * Copies every stored region into {@code target} and removes the keys of those read back intact.
+     * Returns the number of regions moved.
+     */
+    public int migrateTo(TileStore target) {
+        final String prefix = CONFIG_GROUP + ".";
+        final List<String> keys = configManager.getConfigurationKeys(prefix);
+        int migrated = 0;
+        for (String key : keys) {
+            key = key.substring(prefix.length());
+            int separator = key.lastIndexOf("-" + REGION_PREFIX);
+            int regionId = RegionTileCodec.parseRegionId(key, REGION_PREFIX);
+            if (separator <= 0 || regionId < 0) {
+                continue;
+            }
+
+            String player = key.substring(0, separator);
+            RegionTileSet region = RegionTileCodec.decode(regionId, configManager.getConfiguration(CONFIG_GROUP, key));
+            if (!region.isEmpty()) {
+                target.save(player, region);
+                if (target.load(player, regionId).contentHash() != region.contentHash()) {
+                    log.warn("Keeping {} in the config, it did not read back from the new store", key);
+                    continue;
+                }
+            }
+
+            configManager.unsetConfiguration(CONFIG_GROUP, key);
+            migrated++;
+        }
+        return migrated;
+    }
+}
@@ -0,0 +1,360 @@
+package com.grouptileman.runelite.tiles.store;
+
+import com.grouptileman.runelite.tiles.RegionTileSet;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Stores the tiles of each player in their own binary file. A file is an append-only log of region records,
+ * {@code regionId, planeMask} followed by the 64 row bitmaps of each plane in the mask; a later record
+ * of a region replaces earlier ones and a record without planes removes it. Player names ignore case.
+ * <p>
+ * A player's file is opened on first use, by scanning the record headers into an index, and regions are
+ * then read one at a time with positional reads. Files are compacted once most of them is replaced records.
+ */
+@Slf4j
+public class FileTileStore implements TileStore {
+    private static final int MAGIC = 0x47544D53;
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 2 * Integer.BYTES;
+    private static final int RECORD_HEADER_BYTES = Integer.BYTES + 1;
+    private static final int PLANE_BYTES = RegionTileSet.REGION_SIZE * Long.BYTES;
+    private static final String EXTENSION = ".tiles";
+    // don't bother compacting small files
+    private static final long MIN_COMPACT_BYTES = 64 * 1024;
+
+    private final Path directory;
+    private final Map<String, PlayerFile> files = new HashMap<>();
+    private volatile Listener listener;
+
+    private FileTileStore(Path directory) {
+        this.directory = directory;
+    }
+
+    public static FileTileStore open(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        if (!Files.isWritable(directory)) {
+            throw new IOException(directory + " is not writable");
+        }
+        return new FileTileStore(directory);
+    }
+
+    @Override
+    public synchronized RegionTileSet load(String player, int regionId) {
+        try {
+            PlayerFile file = file(player, false);
+            return file == null ? new RegionTileSet(regionId) : file.read(regionId);
+        } catch (IOException e) {
+            log.warn("Unable to read region {} of {}", regionId, player, e);
+            return new RegionTileSet(regionId);
+        }
+    }
+
+    @Override
+    public synchronized Collection<Integer> regionIds(String player) {
+        try {
+            PlayerFile file = file(player, false);
+            return file == null ? Collections.emptyList() : new ArrayList<>(file.records.keySet());
+        } catch (IOException e) {
+            log.warn("Unable to read regions of {}", player, e);
+            return Collections.emptyList();
+        }
+    }
+
+    @Override
+    public void save(String player, RegionTileSet region) {
+        synchronized (this) {
+            try {
+                file(player, true).write(region);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Unable to write region " + region.getRegionId() + " of " + player, e);
+            }
+        }
+
+        Listener listener = this.listener;
+        if (listener != null) {
+            listener.regionChanged(player, region.getRegionId());
+        }
+    }
+
+    @Override
+    public void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    @Override
+    public synchronized void close() {
+        for (PlayerFile file : files.values()) {
+            try {
+                file.close();
+            } catch (IOException e) {
+                log.warn("Unable to close {}", file.path, e);
+            }
+        }
+        files.clear();
+    }
+
+    private PlayerFile file(String player, boolean create) throws IOException {
+        // player names ignore case, and so may the file system
+        final String key = player.toLowerCase(Locale.ROOT);
+        PlayerFile file = files.get(key);
+        if (file != null) {
+            return file;
+        }
+
+        Path path = directory.resolve(fileName(player));
+        if (!create && !Files.exists(path)) {
+            return null;
+        }
+        file = new PlayerFile(path);
+        files.put(key, file);
+        return file;
+    }
+
+    static String fileName(String player) {
+        try {
+            return URLEncoder.encode(player.toLowerCase(Locale.ROOT), StandardCharsets.UTF_8.name()) + EXTENSION;
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static class PlayerFile {
+        private final Path path;
+        private FileChannel channel;
+        // position of the latest record of each stored region shifted left by 4, or'ed with its plane mask
+        private final Map<Integer, Long> records = new HashMap<>();
+        private long liveBytes;
+
+        PlayerFile(Path path) throws IOException {
+            this.path = path;
+            this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            try {
+                if (channel.size() == 0) {
+                    ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).putInt(MAGIC).putInt(VERSION);
+                    header.flip();
+                    writeFully(header, 0);
+                } else {
+                    index();
+                }
+            } catch (IOException e) {
+                channel.close();
+                throw e;
+            }
+        }
+
+        private void index() throws IOException {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            readFully(header, 0);
+            if (header.getInt(0) != MAGIC || header.getInt(Integer.BYTES) != VERSION) {
+                throw new IOException(path + " is not a tile store file");
+            }
+
+            final long size = channel.size();
+            final ByteBuffer recordHeader = ByteBuffer.allocate(RECORD_HEADER_BYTES);
+            long position = HEADER_BYTES;
+            while (position + RECORD_HEADER_BYTES <= size) {
+                recordHeader.clear();
+                readFully(recordHeader, position);
+                int regionId = recordHeader.getInt(0);
+                int planeMask = recordHeader.get(Integer.BYTES) & 0xFF;
+                if (planeMask > 0xF) {
+                    // not something a cut short write leaves behind, keep the file for whoever looks into it
+                    throw new IOException(path + " has a corrupt record header at " + position);
+                }
+                long length = recordLength(planeMask);
+                if (position + length > size) {
+                    break;
+                }
+
+                Long previous = planeMask == 0 ? records.remove(regionId) : records.put(regionId, position << 4 | planeMask);
+                if (previous != null) {
+                    liveBytes -= recordLength(planeMask(previous));
+                }
+                if (planeMask != 0) {
+                    liveBytes += length;
+                }
+                position += length;
+            }
+
+            if (position < size) {
+                // a write was cut short, drop the partial record
+                log.warn("Truncating {} from {} to {} bytes", path, size, position);
+                channel.truncate(position);
+            }
+        }
+
+        RegionTileSet read(int regionId) throws IOException {
+            RegionTileSet region = new RegionTileSet(regionId);
+            Long record = records.get(regionId);
+            if (record == null) {
+                return region;
+            }
+
+            int planeMask = planeMask(record);
+            ByteBuffer rows = ByteBuffer.allocate(Integer.bitCount(planeMask) * PLANE_BYTES);
+            readFully(rows, position(record) + RECORD_HEADER_BYTES);
+            rows.flip();
+            for (int plane = 0; plane < RegionTileSet.PLANES; plane++) {
+                if ((planeMask & (1 << plane)) == 0) {
+                    continue;
+                }
+                for (int y = 0; y < RegionTileSet.REGION_SIZE; y++) {
+                    region.addRow(plane, y, rows.getLong());
+                }
+            }
+            return region;
+        }
+
+        void write(RegionTileSet region) throws IOException {
+            final int regionId = region.getRegionId();
+            int planeMask = 0;
+            for (int plane = 0; plane < RegionTileSet.PLANES; plane++) {
+                for (int y = 0; y < RegionTileSet.REGION_SIZE; y++) {
+                    if (region.row(plane, y) != 0) {
+                        planeMask |= 1 << plane;
+                        break;
+                    }
+                }
+            }
+
+            Long previous = records.get(regionId);
+            if (planeMask == 0 && previous == null) {
+                return;
+            }
+
+            ByteBuffer record = ByteBuffer.allocate((int) recordLength(planeMask));
+            record.putInt(regionId).put((byte) planeMask);
+            for (int plane = 0; plane < RegionTileSet.PLANES; plane++) {
+                if ((planeMask & (1 << plane)) == 0) {
+                    continue;
+                }
+                for (int y = 0; y < RegionTileSet.REGION_SIZE; y++) {
+                    record.putLong(region.row(plane, y));
+                }
+            }
+            record.flip();
+
+            final long position = channel.size();
+            writeFully(record, position);
+
+            if (previous != null) {
+                liveBytes -= recordLength(planeMask(previous));
+            }
+            if (planeMask == 0) {
+                records.remove(regionId);
+            } else {
+                records.put(regionId, position << 4 | planeMask);
+                liveBytes += recordLength(planeMask);
+            }
+
+            if (channel.size() > MIN_COMPACT_BYTES && channel.size() - HEADER_BYTES > 2 * liveBytes) {
+                compact();
+            }
+        }
+
+        /**
+         * Rewrites the file with only the latest record of each region.
+         */
+        private void compact() throws IOException {
+            final Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+            final Map<Integer, Long> compacted = new HashMap<>();
+            try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).putInt(MAGIC).putInt(VERSION);
+                header.flip();
+                while (header.hasRemaining()) {
+                    out.write(header);
+                }
+
+                for (Map.Entry<Integer, Long> entry : records.entrySet()) {
+                    long position = position(entry.getValue());
+                    int planeMask = planeMask(entry.getValue());
+                    long length = recordLength(planeMask);
+                    compacted.put(entry.getKey(), out.position() << 4 | planeMask);
+                    long copied = 0;
+                    while (copied < length) {
+                        copied += channel.transferTo(position + copied, length - copied, out);
+                    }
+                }
+                out.force(true);
+            }
+
+            // some platforms won't replace a file that is still open
+            channel.close();
+            boolean moved = false;
+            try {
+                replace(temp, path);
+                moved = true;
+            } catch (IOException e) {
+                // the old file is still in place and the record just written is in it
+                log.warn("Unable to replace {} with its compacted copy", path, e);
+                Files.deleteIfExists(temp);
+            } finally {
+                channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            }
+
+            if (moved) {
+                records.clear();
+                records.putAll(compacted);
+                log.debug("Compacted {} to {} regions", path, records.size());
+            }
+        }
+
+        private static void replace(Path source, Path target) throws IOException {
+            try {
+                Files.move(source, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+
+        private static long position(long record) {
+            return record >>> 4;
+        }
+
+        private static int planeMask(long record) {
+            return (int) (record & 0xF);
+        }
+
+        private static long recordLength(int planeMask) {
+            return RECORD_HEADER_BYTES + (long) Integer.bitCount(planeMask) * PLANE_BYTES;
+        }
+
+        private void readFully(ByteBuffer buffer, long position) throws IOException {
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, position + buffer.position()) < 0) {
+                    throw new IOException("Unexpected end of " + path);
+                }
+            }
+        }
+
+        private void writeFully(ByteBuffer buffer, long position) throws IOException {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer, position + buffer.position());
+            }
+        }
+
+        void close() throws IOException {
+            channel.force(false);
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.grouptileman.runelite.tiles.store;
+
+import com.grouptileman.runelite.tiles.RegionTileSet;
+
+import java.util.Collection;
+
+/**
+ * Where the imported tiles of the group members are kept, one {@link RegionTileSet} per player and region.
+ */
+public interface TileStore {
+    /**
+     * Called after a region of a player has been written.
+     */
+    interface Listener {
+        void regionChanged(String player, int regionId);
+    }
+
+    /**
+     * Returns the stored tiles of {@code player} in {@code regionId}, empty if there are none.
+     */
+    RegionTileSet load(String player, int regionId);
+
+    /**
+     * Returns the ids of the regions stored for {@code player}, without reading their tiles.
+     */
+    Collection<Integer> regionIds(String player);
+
+    /**
+     * Replaces the stored tiles of {@code player} in the region of {@code region}. Saving an empty set removes the region.
+     */
+    void save(String player, RegionTileSet region);
+
+    /**
+     * Sets the listener told about saved regions. Stores whose writes already announce themselves, like
+     * configuration changes, may never call it.
+     */
+    void setListener(Listener listener);
+
+    default void close() {
+    }
+}
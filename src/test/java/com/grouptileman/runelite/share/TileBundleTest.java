@@ -0,0 +1,126 @@
+package com.grouptileman.runelite.share;
+
+import com.grouptileman.runelite.share.codec.TileDeltaCodec;
+import com.grouptileman.runelite.tiles.RegionTileSet;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class TileBundleTest
+{
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void roundTripsSeveralPlayers() throws IOException
+	{
+		Path path = write(150, 3);
+
+		Map<String, Set<Integer>> read = new HashMap<>();
+		List<Integer> parts = new ArrayList<>();
+		TileBundle.read(path, 0, (index, part) ->
+		{
+			parts.add(index);
+			TileDeltaCodec.decode(part, (player, region) ->
+			{
+				assertEquals(region(region.getRegionId()).contentHash(), region.contentHash());
+				read.computeIfAbsent(player, p -> new HashSet<>()).add(region.getRegionId());
+			});
+		});
+
+		// alice's 150 regions need two parts, bob's and carol's one each
+		assertEquals(Arrays.asList(0, 1, 2, 3), parts);
+		assertEquals(150, read.get("alice").size());
+		assertEquals(3, read.get("bob").size());
+		assertEquals(3, read.get("carol").size());
+		assertFalse(Files.exists(path.resolveSibling(path.getFileName() + ".tmp")));
+	}
+
+	@Test
+	public void resumesAfterSkippedParts() throws IOException
+	{
+		Path path = write(150, 3);
+
+		Set<String> players = new HashSet<>();
+		List<Integer> parts = new ArrayList<>();
+		TileBundle.read(path, 2, (index, part) ->
+		{
+			parts.add(index);
+			TileDeltaCodec.decode(part, (player, region) -> players.add(player));
+		});
+
+		assertEquals(Arrays.asList(2, 3), parts);
+		assertEquals(new HashSet<>(Arrays.asList("bob", "carol")), players);
+	}
+
+	@Test
+	public void stopsAtATruncatedPart() throws IOException
+	{
+		Path path = write(150, 3);
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE))
+		{
+			channel.truncate(channel.size() - 10);
+		}
+
+		List<Integer> parts = new ArrayList<>();
+		try
+		{
+			TileBundle.read(path, 0, (index, part) -> parts.add(index));
+			fail();
+		}
+		catch (IOException e)
+		{
+			// every complete part was handed out first
+			assertEquals(Arrays.asList(0, 1, 2), parts);
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectsOtherFiles() throws IOException
+	{
+		Path path = folder.newFile("tiles.json").toPath();
+		Files.write(path, "{\"regions\":[]}".getBytes());
+		TileBundle.read(path, 0, (index, part) -> fail());
+	}
+
+	private Path write(int aliceRegions, int otherRegions) throws IOException
+	{
+		Path path = folder.getRoot().toPath().resolve("group." + TileBundle.EXTENSION);
+		try (TileBundle.Writer writer = TileBundle.Writer.create(path))
+		{
+			for (int i = 0; i < aliceRegions; i++)
+			{
+				writer.add("alice", region(10000 + i));
+			}
+			for (String player : Arrays.asList("bob", "carol"))
+			{
+				for (int i = 0; i < otherRegions; i++)
+				{
+					writer.add(player, region(12850 + i));
+				}
+			}
+			assertEquals(4, writer.commit());
+		}
+		return path;
+	}
+
+	private static RegionTileSet region(int regionId)
+	{
+		Random random = new Random(regionId);
+		RegionTileSet region = new RegionTileSet(regionId);
+		for (int i = 0; i < 50; i++)
+		{
+			region.add(random.nextInt(64), random.nextInt(64), random.nextInt(RegionTileSet.PLANES));
+		}
+		return region;
+	}
+}
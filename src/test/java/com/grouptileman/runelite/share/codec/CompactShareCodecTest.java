@@ -0,0 +1,223 @@
+package com.grouptileman.runelite.share.codec;
+
+import com.google.gson.Gson;
+import com.grouptileman.runelite.tiles.RegionTileCodec;
+import com.grouptileman.runelite.tiles.RegionTileSet;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.*;
+import java.util.zip.DeflaterOutputStream;
+
+import static org.junit.Assert.*;
+
+public class CompactShareCodecTest
+{
+	private final ShareCodecs codecs = new ShareCodecs(new Gson());
+	private final CompactShareCodec compact = new CompactShareCodec();
+
+	@Test
+	public void roundTripsSparseAndDenseRegions() throws IOException
+	{
+		SortedMap<Integer, RegionTileSet> regions = new TreeMap<>();
+		RegionTileSet sparse = new RegionTileSet(12850);
+		sparse.add(0, 0, 0);
+		sparse.add(63, 63, 3);
+		sparse.add(17, 4, 1);
+		regions.put(12850, sparse);
+		RegionTileSet dense = new RegionTileSet(12851);
+		for (int x = 0; x < 64; x++)
+		{
+			for (int y = 0; y < 64; y++)
+			{
+				dense.add(x, y, 0);
+			}
+		}
+		regions.put(12851, dense);
+		regions.put(12852, new RegionTileSet(12852));
+
+		assertRoundTrips(compact, "Some Player", regions, false);
+	}
+
+	@Test
+	public void roundTripsStoredRegions() throws IOException
+	{
+		SortedMap<Integer, RegionTileSet> regions = syntheticTerritory(new Random(1), 200, 600);
+		assertRoundTrips(compact, "Synthetic", regions, false);
+		assertRoundTrips(compact, "Synthetic", regions, true);
+	}
+
+	@Test
+	public void exportsMissingPayloadsEmpty() throws IOException
+	{
+		SortedMap<Integer, String> stored = new TreeMap<>();
+		stored.put(12850, null);
+		stored.put(12851, "");
+
+		Map<Integer, RegionTileSet> decoded = new TreeMap<>();
+		String payload = export(compact, "Some Player", stored, false);
+		codecs.detect(payload).decode(payload, (player, region) -> decoded.put(region.getRegionId(), region));
+
+		assertEquals(stored.keySet(), decoded.keySet());
+		assertTrue(decoded.values().stream().allMatch(RegionTileSet::isEmpty));
+	}
+
+	@Test
+	public void leavesOutMalformedPayloads() throws IOException
+	{
+		SortedMap<Integer, String> stored = new TreeMap<>();
+		stored.put(12850, "[{\"regionId\":12850,\"regionX\":1,\"regionY\":2,\"z\":0}]");
+		stored.put(12851, "[{\"regionId\":12851,\"regionX\":");
+		stored.put(12852, "not tiles");
+
+		for (boolean validate : new boolean[]{false, true})
+		{
+			Set<Integer> regionIds = new HashSet<>();
+			String payload = export(compact, "Some Player", stored, validate);
+			codecs.detect(payload).decode(payload, (player, region) -> regionIds.add(region.getRegionId()));
+
+			assertEquals(Collections.singleton(12850), regionIds);
+		}
+	}
+
+	@Test
+	public void detectsBothFormats() throws IOException
+	{
+		SortedMap<Integer, String> stored = stored(syntheticTerritory(new Random(2), 3, 50));
+
+		assertTrue(codecs.detect(export(new JsonShareCodec(new Gson()), "Synthetic", stored, false)) instanceof JsonShareCodec);
+		assertTrue(codecs.detect(export(compact, "Synthetic", stored, false)) instanceof CompactShareCodec);
+		assertNull(codecs.detect("not tiles"));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectsCorruptPayload()
+	{
+		compact.decode(CompactShareCodec.HEADER + "AAAA", (player, region) -> fail());
+	}
+
+	@Test
+	public void rejectsNegativeTileDelta() throws IOException
+	{
+		// a region listing one tile, reached by stepping back from the start
+		assertMalformed(-2, 1);
+	}
+
+	@Test
+	public void rejectsTileCountsBeyondTheRegion() throws IOException
+	{
+		assertMalformed(1, -1);
+		assertMalformed(1, RegionTileSet.PLANES * RegionTileSet.REGION_SIZE * RegionTileSet.REGION_SIZE + 1);
+	}
+
+	private void assertMalformed(int delta, int count) throws IOException
+	{
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (DataOutputStream out = new DataOutputStream(new DeflaterOutputStream(bytes)))
+		{
+			CompactShareCodec.writeVarInt(out, CompactShareCodec.VERSION);
+			out.writeUTF("Some Player");
+			CompactShareCodec.writeVarInt(out, 1);
+			CompactShareCodec.writeVarInt(out, 12850);
+			// list encoding
+			out.writeByte(0);
+			CompactShareCodec.writeVarInt(out, count);
+			CompactShareCodec.writeVarInt(out, delta);
+		}
+
+		try
+		{
+			compact.decode(CompactShareCodec.HEADER + Base64.getEncoder().encodeToString(bytes.toByteArray()), (player, region) -> fail());
+			fail();
+		}
+		catch (IllegalArgumentException e)
+		{
+			assertTrue(e.getCause() instanceof IOException);
+		}
+	}
+
+	@Test
+	public void compactIsSmallerThanJson() throws IOException
+	{
+		SortedMap<Integer, String> stored = stored(syntheticTerritory(new Random(3), 400, 800));
+
+		String legacy = export(new JsonShareCodec(new Gson()), "Synthetic", stored, false);
+		String encoded = export(compact, "Synthetic", stored, false);
+
+		assertTrue(encoded.length() * 10 < legacy.length());
+	}
+
+	/**
+	 * Exports {@code regions} from their stored JSON and checks that importing the export gives them back.
+	 */
+	static void assertRoundTrips(ShareCodec codec, String playerName, SortedMap<Integer, RegionTileSet> regions, boolean validate) throws IOException
+	{
+		String payload = export(codec, playerName, stored(regions), validate);
+
+		Map<Integer, RegionTileSet> decoded = new TreeMap<>();
+		new ShareCodecs(new Gson()).detect(payload).decode(payload, (player, region) ->
+		{
+			assertEquals(playerName, player);
+			decoded.put(region.getRegionId(), region);
+		});
+
+		assertEquals(regions.keySet(), decoded.keySet());
+		for (RegionTileSet region : regions.values())
+		{
+			RegionTileSet other = decoded.get(region.getRegionId());
+			assertEquals(region.size(), other.size());
+			for (int plane = 0; plane < RegionTileSet.PLANES; plane++)
+			{
+				for (int y = 0; y < RegionTileSet.REGION_SIZE; y++)
+				{
+					assertEquals(region.row(plane, y), other.row(plane, y));
+				}
+			}
+		}
+	}
+
+	static String export(ShareCodec codec, String playerName, SortedMap<Integer, String> stored, boolean validate) throws IOException
+	{
+		StringWriter out = new StringWriter();
+		codec.encode(playerName, stored, validate, out);
+		return out.toString();
+	}
+
+	/**
+	 * Returns the regions as they are stored, each a {@code List<Tile>} JSON array.
+	 */
+	static SortedMap<Integer, String> stored(SortedMap<Integer, RegionTileSet> regions)
+	{
+		SortedMap<Integer, String> stored = new TreeMap<>();
+		for (RegionTileSet region : regions.values())
+		{
+			stored.put(region.getRegionId(), RegionTileCodec.encode(region));
+		}
+		return stored;
+	}
+
+	/**
+	 * Builds blob shaped territory, like a tileman player's walking paths and bases.
+	 */
+	static SortedMap<Integer, RegionTileSet> syntheticTerritory(Random random, int regions, int tilesPerRegion)
+	{
+		SortedMap<Integer, RegionTileSet> territory = new TreeMap<>();
+		for (int i = 0; i < regions; i++)
+		{
+			RegionTileSet region = new RegionTileSet(10000 + i);
+			int x = random.nextInt(64);
+			int y = random.nextInt(64);
+			while (region.size() < tilesPerRegion)
+			{
+				region.add(x, y, 0);
+				x = Math.min(63, Math.max(0, x + random.nextInt(3) - 1));
+				y = Math.min(63, Math.max(0, y + random.nextInt(3) - 1));
+			}
+			territory.put(region.getRegionId(), region);
+		}
+		return territory;
+	}
+}
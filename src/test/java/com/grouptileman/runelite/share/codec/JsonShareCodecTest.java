@@ -0,0 +1,70 @@
+package com.grouptileman.runelite.share.codec;
+
+import com.google.gson.Gson;
+import com.grouptileman.runelite.tiles.RegionTileSet;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.*;
+
+import static com.grouptileman.runelite.share.codec.CompactShareCodecTest.*;
+import static org.junit.Assert.*;
+
+public class JsonShareCodecTest
+{
+	private final JsonShareCodec json = new JsonShareCodec(new Gson());
+
+	@Test
+	public void roundTripsSplicedAndValidatedRegions() throws IOException
+	{
+		SortedMap<Integer, RegionTileSet> regions = syntheticTerritory(new Random(4), 50, 300);
+		regions.put(20000, new RegionTileSet(20000));
+
+		assertRoundTrips(json, "Synthetic", regions, false);
+		assertRoundTrips(json, "Synthetic", regions, true);
+	}
+
+	@Test
+	public void splicesStoredPayloadsAsTheyAre() throws IOException
+	{
+		SortedMap<Integer, String> stored = new TreeMap<>();
+		stored.put(12850, "[{\"regionId\":12850,\"regionX\":1,\"regionY\":2,\"z\":0}]");
+		stored.put(12851, null);
+
+		assertEquals("{\"playerName\":\"Some Player\",\"regionTiles\":{\"region_12850\":"
+			+ "[{\"regionId\":12850,\"regionX\":1,\"regionY\":2,\"z\":0}],\"region_12851\":[]}}",
+			export(json, "Some Player", stored, false));
+	}
+
+	@Test
+	public void leavesOutStoredPayloadsThatAreNotArrays() throws IOException
+	{
+		SortedMap<Integer, String> stored = new TreeMap<>();
+		stored.put(12850, "[{\"regionId\":12850,\"regionX\":1,\"regionY\":2,\"z\":0}]");
+		stored.put(12851, "[{\"regionId\":12851,\"regionX\":1");
+		stored.put(12852, "[]],\"playerName\":\"Someone Else\"");
+		stored.put(12853, "{\"regionId\":12853}");
+		stored.put(12854, "[{\"note\":\"]\\\"\"}]");
+
+		Set<Integer> regionIds = new HashSet<>();
+		json.decode(export(json, "Some Player", stored, false), (player, region) ->
+		{
+			assertEquals("Some Player", player);
+			regionIds.add(region.getRegionId());
+		});
+
+		assertEquals(new HashSet<>(Arrays.asList(12850, 12854)), regionIds);
+	}
+
+	@Test
+	public void validatingDropsOutOfRangeTiles() throws IOException
+	{
+		SortedMap<Integer, String> stored = new TreeMap<>();
+		stored.put(12850, "[{\"regionId\":12850,\"regionX\":1,\"regionY\":2,\"z\":0},{\"regionId\":12850,\"regionX\":64,\"regionY\":2,\"z\":0}]");
+
+		List<Integer> sizes = new ArrayList<>();
+		json.decode(export(json, "Some Player", stored, true), (player, region) -> sizes.add(region.size()));
+
+		assertEquals(Collections.singletonList(1), sizes);
+	}
+}
@@ -0,0 +1,190 @@
+package com.grouptileman.runelite.share.sync;
+
+import com.grouptileman.runelite.share.codec.TileDeltaCodec;
+import com.grouptileman.runelite.tiles.RegionTileSet;
+import okhttp3.HttpUrl;
+import okhttp3.OkHttpClient;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+
+import static org.junit.Assert.*;
+
+public class RelayClientTest
+{
+	private RelayServer server;
+	private HttpUrl endpoint;
+	private final OkHttpClient httpClient = new OkHttpClient();
+
+	@Before
+	public void startRelay() throws Exception
+	{
+		server = new RelayServer(0, 2);
+		server.start();
+		endpoint = HttpUrl.parse("http://127.0.0.1:" + server.getPort());
+	}
+
+	@After
+	public void stopRelay()
+	{
+		server.stop();
+	}
+
+	@Test
+	public void membersReceiveEachOthersDeltas() throws Exception
+	{
+		RelayClient alice = new RelayClient(httpClient, endpoint, "group key/1");
+		RelayClient bob = new RelayClient(httpClient, endpoint, "group key/1");
+
+		RegionTileSet aliceRegion = region(12850, 1);
+		RegionTileSet bobRegion = region(12851, 2);
+		assertEquals(1L, (long) alice.push(TileDeltaCodec.encode("Alice", Collections.singletonList(aliceRegion))).get());
+		assertEquals(2L, (long) bob.push(TileDeltaCodec.encode("Bob", Collections.singletonList(bobRegion))).get());
+
+		Map<String, RegionTileSet> received = new HashMap<>();
+		RelayClient.Messages messages = alice.pull(0).get();
+		assertEquals(2, messages.getLatest());
+		for (RelayClient.Message message : messages.getMessages())
+		{
+			TileDeltaCodec.decode(message.getBody(), (player, region) -> received.put(player, region));
+		}
+
+		assertEquals(aliceRegion.contentHash(), received.get("Alice").contentHash());
+		assertEquals(bobRegion.contentHash(), received.get("Bob").contentHash());
+	}
+
+	@Test
+	public void resumesAfterTheLastAppliedMessage() throws Exception
+	{
+		RelayClient client = new RelayClient(httpClient, endpoint, "group");
+		for (int i = 0; i < 5; i++)
+		{
+			client.push(TileDeltaCodec.encode("Alice", Collections.singletonList(region(12850 + i, i)))).get();
+		}
+
+		// the relay hands out two messages per pull, so this takes three
+		List<Long> sequences = new ArrayList<>();
+		long applied = 0;
+		RelayClient.Messages messages;
+		do
+		{
+			messages = client.pull(applied).get();
+			for (RelayClient.Message message : messages.getMessages())
+			{
+				sequences.add(message.getSequence());
+				applied = message.getSequence();
+			}
+		}
+		while (applied < messages.getLatest());
+
+		assertEquals(Arrays.asList(1L, 2L, 3L, 4L, 5L), sequences);
+		assertTrue(client.pull(applied).get().getMessages().isEmpty());
+	}
+
+	@Test
+	public void keepsGroupsApart() throws Exception
+	{
+		new RelayClient(httpClient, endpoint, "one").push(TileDeltaCodec.encode("Alice", Collections.singletonList(region(12850, 1)))).get();
+
+		RelayClient.Messages messages = new RelayClient(httpClient, endpoint, "two").pull(0).get();
+		assertEquals(0, messages.getLatest());
+		assertTrue(messages.getMessages().isEmpty());
+	}
+
+	@Test(expected = ExecutionException.class)
+	public void failsWhenTheRelayIsDown() throws Exception
+	{
+		server.stop();
+		new RelayClient(httpClient, endpoint, "group").pull(0).get();
+	}
+
+	@Test
+	public void rejectsMalformedMessageLengths() throws Exception
+	{
+		for (int length : new int[]{-1, 5, Integer.MAX_VALUE})
+		{
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			DataOutputStream out = new DataOutputStream(bytes);
+			out.writeLong(1);
+			out.writeInt(1);
+			out.writeLong(1);
+			out.writeInt(length);
+			out.write(new byte[4]);
+			try
+			{
+				RelayClient.readMessages(bytes.toByteArray());
+				fail("Read a message of length " + length);
+			}
+			catch (IOException e)
+			{
+				// expected
+			}
+		}
+	}
+
+	@Test
+	public void limitsResponseBodies() throws Exception
+	{
+		assertEquals(16, RelayClient.readBody(new ByteArrayInputStream(new byte[16]), -1, 16).length);
+		for (long contentLength : new long[]{-1, 17})
+		{
+			try
+			{
+				RelayClient.readBody(new ByteArrayInputStream(new byte[17]), contentLength, 16);
+				fail("Read a body of 17 bytes declared as " + contentLength);
+			}
+			catch (IOException e)
+			{
+				// expected
+			}
+		}
+	}
+
+	@Test
+	public void deltasAreSmallerThanTheirTiles()
+	{
+		List<RegionTileSet> regions = new ArrayList<>();
+		int tiles = 0;
+		for (int i = 0; i < 100; i++)
+		{
+			RegionTileSet region = region(12850 + i, i);
+			regions.add(region);
+			tiles += region.size();
+		}
+
+		byte[] message = TileDeltaCodec.encode("Alice", regions);
+		assertTrue(message.length < tiles);
+
+		List<Long> hashes = new ArrayList<>();
+		TileDeltaCodec.decode(message, (player, region) -> hashes.add(region.contentHash()));
+		for (int i = 0; i < regions.size(); i++)
+		{
+			assertEquals(regions.get(i).contentHash(), (long) hashes.get(i));
+		}
+	}
+
+	/**
+	 * A random walk of a few hundred tiles, like a day of tileman.
+	 */
+	private static RegionTileSet region(int regionId, long seed)
+	{
+		Random random = new Random(seed);
+		RegionTileSet region = new RegionTileSet(regionId);
+		int x = random.nextInt(64);
+		int y = random.nextInt(64);
+		for (int step = 0; step < 500; step++)
+		{
+			region.add(x, y, 0);
+			x = Math.min(63, Math.max(0, x + random.nextInt(3) - 1));
+			y = Math.min(63, Math.max(0, y + random.nextInt(3) - 1));
+		}
+		return region;
+	}
+}
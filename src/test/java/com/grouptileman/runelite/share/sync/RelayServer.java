@@ -0,0 +1,158 @@
+package com.grouptileman.runelite.share.sync;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reference relay speaking the protocol of {@link RelayClient}, keeping every group's log in memory.
+ * Run {@link #main} to sync clients through it locally.
+ */
+public class RelayServer
+{
+	private static final Logger log = LoggerFactory.getLogger(RelayServer.class);
+	private static final String PREFIX = "/groups/";
+	private static final String SUFFIX = "/messages";
+
+	private final HttpServer server;
+	// most messages returned by one pull
+	private final int pullLimit;
+	private final Map<String, List<byte[]>> groups = new HashMap<>();
+
+	public RelayServer(int port, int pullLimit) throws IOException
+	{
+		this.pullLimit = pullLimit;
+		server = HttpServer.create(new InetSocketAddress("127.0.0.1", port), 0);
+		server.createContext(PREFIX, this::handle);
+	}
+
+	public static void main(String[] args) throws IOException
+	{
+		RelayServer relay = new RelayServer(args.length > 0 ? Integer.parseInt(args[0]) : 8090, 256);
+		relay.start();
+		log.info("Relay listening on http://127.0.0.1:{}", relay.getPort());
+	}
+
+	public void start()
+	{
+		server.start();
+	}
+
+	public void stop()
+	{
+		server.stop(0);
+	}
+
+	public int getPort()
+	{
+		return server.getAddress().getPort();
+	}
+
+	private void handle(HttpExchange exchange) throws IOException
+	{
+		try
+		{
+			String path = exchange.getRequestURI().getPath();
+			if (!path.endsWith(SUFFIX) || path.length() <= PREFIX.length() + SUFFIX.length())
+			{
+				respond(exchange, 404, new byte[0]);
+				return;
+			}
+			String group = path.substring(PREFIX.length(), path.length() - SUFFIX.length());
+
+			if ("POST".equals(exchange.getRequestMethod()))
+			{
+				byte[] message = readAll(exchange.getRequestBody());
+				long sequence;
+				synchronized (groups)
+				{
+					List<byte[]> log = groups.computeIfAbsent(group, g -> new ArrayList<>());
+					log.add(message);
+					sequence = log.size();
+				}
+				ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+				new DataOutputStream(bytes).writeLong(sequence);
+				respond(exchange, 200, bytes.toByteArray());
+			}
+			else if ("GET".equals(exchange.getRequestMethod()))
+			{
+				long after = parseAfter(exchange.getRequestURI().getRawQuery());
+				ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+				DataOutputStream out = new DataOutputStream(bytes);
+				synchronized (groups)
+				{
+					List<byte[]> log = groups.getOrDefault(group, new ArrayList<>());
+					int from = (int) Math.min(Math.max(after, 0), log.size());
+					int to = Math.min(log.size(), from + pullLimit);
+					out.writeLong(log.size());
+					out.writeInt(to - from);
+					for (int i = from; i < to; i++)
+					{
+						out.writeLong(i + 1);
+						out.writeInt(log.get(i).length);
+						out.write(log.get(i));
+					}
+				}
+				respond(exchange, 200, bytes.toByteArray());
+			}
+			else
+			{
+				respond(exchange, 405, new byte[0]);
+			}
+		}
+		finally
+		{
+			exchange.close();
+		}
+	}
+
+	private static long parseAfter(String query)
+	{
+		if (query != null)
+		{
+			for (String parameter : query.split("&"))
+			{
+				if (parameter.startsWith("after="))
+				{
+					return Long.parseLong(parameter.substring("after=".length()));
+				}
+			}
+		}
+		return 0;
+	}
+
+	private static byte[] readAll(InputStream in) throws IOException
+	{
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		byte[] buffer = new byte[8192];
+		for (int read; (read = in.read(buffer)) > 0; )
+		{
+			bytes.write(buffer, 0, read);
+		}
+		return bytes.toByteArray();
+	}
+
+	private static void respond(HttpExchange exchange, int status, byte[] body) throws IOException
+	{
+		exchange.sendResponseHeaders(status, body.length == 0 ? -1 : body.length);
+		if (body.length > 0)
+		{
+			try (OutputStream out = exchange.getResponseBody())
+			{
+				out.write(body);
+			}
+		}
+	}
+}
@@ -0,0 +1,89 @@
+package com.grouptileman.runelite.tiles;
+
+import com.grouptileman.runelite.metrics.TileMetrics;
+import com.grouptileman.runelite.tiles.store.TileStore;
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class RegionPrefetcherTest
+{
+	@Test
+	public void findsTheUnloadedRegionsOfTheNextScene()
+	{
+		// a scene of regions 49 to 51 on both axes, the player walking east into region 52
+		int[] loaded = new int[9];
+		for (int i = 0; i < loaded.length; i++)
+		{
+			loaded[i] = ((49 + i / 3) << 8) | (49 + i % 3);
+		}
+
+		Set<Integer> ahead = RegionPrefetcher.regionsAhead(52 * 64 + 10, 50 * 64 + 32, loaded);
+
+		assertEquals(new HashSet<>(Arrays.asList((52 << 8) | 49, (52 << 8) | 50, (52 << 8) | 51)), ahead);
+	}
+
+	@Test
+	public void onlyPrefetchesNearTheSceneEdge()
+	{
+		assertFalse(RegionPrefetcher.nearEdge(52, 52));
+		assertFalse(RegionPrefetcher.nearEdge(RegionPrefetcher.EDGE_DISTANCE, 103 - RegionPrefetcher.EDGE_DISTANCE));
+		assertTrue(RegionPrefetcher.nearEdge(RegionPrefetcher.EDGE_DISTANCE - 1, 52));
+		assertTrue(RegionPrefetcher.nearEdge(52, 104 - RegionPrefetcher.EDGE_DISTANCE));
+	}
+
+	@Test
+	public void loadsUsePrefetchedTiles()
+	{
+		Map<Integer, Integer> loads = new HashMap<>();
+		TileLoader loader = new TileLoader(countingStore(loads), Runnable::run);
+
+		loader.prefetch("Alice", 12850);
+		loader.prefetch("Alice", 12850);
+		assertEquals(1, (int) loads.get(12850));
+
+		assertEquals(1, loader.getTiles("Alice", 12850).size());
+		assertEquals(1, (int) loads.get(12850));
+		assertEquals(1, loader.getMetrics().counter(TileMetrics.PREFETCH_USED).get());
+
+		// changed tiles are decoded again rather than taken from a stale prefetch
+		loader.prefetch("Alice", 12851);
+		loader.regionChanged("Alice", 12851);
+		loader.getTiles("Alice", 12851);
+		assertEquals(2, (int) loads.get(12851));
+		assertEquals(1, loader.getMetrics().counter(TileMetrics.PREFETCH_USED).get());
+	}
+
+	private static TileStore countingStore(Map<Integer, Integer> loads)
+	{
+		return new TileStore()
+		{
+			@Override
+			public RegionTileSet load(String player, int regionId)
+			{
+				loads.merge(regionId, 1, Integer::sum);
+				RegionTileSet region = new RegionTileSet(regionId);
+				region.add(1, 2, 0);
+				return region;
+			}
+
+			@Override
+			public Collection<Integer> regionIds(String player)
+			{
+				return Collections.emptyList();
+			}
+
+			@Override
+			public void save(String player, RegionTileSet region)
+			{
+			}
+
+			@Override
+			public void setListener(Listener listener)
+			{
+			}
+		};
+	}
+}
@@ -0,0 +1,153 @@
+package com.grouptileman.runelite.tiles;
+
+import net.runelite.api.Client;
+import net.runelite.api.coords.WorldPoint;
+import org.junit.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class SceneContextTest
+{
+	private static final int CHUNKS = 13;
+	// template regions the instances pick their chunks from
+	private static final int[] TEMPLATE_REGIONS = {13136, 13137, 13138, 13392, 13393, 13394};
+
+	@Test
+	public void matchesToLocalInstanceForRotatedRooms()
+	{
+		Random random = new Random(1);
+		int[][][] chunks = new int[4][CHUNKS][CHUNKS];
+		for (int plane = 0; plane < 4; plane++)
+		{
+			for (int x = 0; x < CHUNKS; x++)
+			{
+				for (int y = 0; y < CHUNKS; y++)
+				{
+					int regionId = TEMPLATE_REGIONS[random.nextInt(TEMPLATE_REGIONS.length)];
+					chunks[plane][x][y] = chunk(regionId, random.nextInt(8), random.nextInt(8), plane, random.nextInt(4));
+				}
+			}
+		}
+
+		assertMatches(chunks, 3200, 5120, random);
+	}
+
+	@Test
+	public void matchesToLocalInstanceForRepeatedChunks()
+	{
+		// one room repeated across the instance in every rotation, like a house built from the same template
+		Random random = new Random(2);
+		int[][][] chunks = new int[4][CHUNKS][CHUNKS];
+		for (int x = 0; x < CHUNKS; x++)
+		{
+			for (int y = 0; y < CHUNKS; y++)
+			{
+				chunks[0][x][y] = chunk(TEMPLATE_REGIONS[0], (x + y) % 2, 3, 0, (x * CHUNKS + y) % 4);
+				// upper floors are mostly unused
+				chunks[1][x][y] = x == 6 && y == 6 ? chunk(TEMPLATE_REGIONS[0], 0, 3, 1, 2) : 0;
+			}
+		}
+
+		assertMatches(chunks, 1856, 5696, random);
+	}
+
+	@Test
+	public void matchesToLocalInstanceForChunksOfOtherPlanes()
+	{
+		// rooms shown on a different floor than the one they were built on, and two floors of the same room
+		Random random = new Random(3);
+		int[][][] chunks = new int[4][CHUNKS][CHUNKS];
+		for (int plane = 0; plane < 4; plane++)
+		{
+			for (int x = 0; x < CHUNKS; x++)
+			{
+				for (int y = 0; y < CHUNKS; y++)
+				{
+					int regionId = TEMPLATE_REGIONS[random.nextInt(TEMPLATE_REGIONS.length)];
+					chunks[plane][x][y] = chunk(regionId, random.nextInt(8), random.nextInt(8), (plane + 1 + random.nextInt(3)) % 4, random.nextInt(4));
+				}
+			}
+		}
+		chunks[2][4][4] = chunks[0][4][4] = chunk(TEMPLATE_REGIONS[0], 2, 2, 1, 0);
+
+		assertMatches(chunks, 3200, 5120, random);
+	}
+
+	@Test
+	public void ignoresRegionsOutsideTheInstance()
+	{
+		int[][][] chunks = new int[4][CHUNKS][CHUNKS];
+		chunks[0][0][0] = chunk(TEMPLATE_REGIONS[0], 0, 0, 0, 0);
+		SceneContext scene = new SceneContext(new int[]{TEMPLATE_REGIONS[0]}, true, chunks, 3200, 5120);
+
+		// region ids whose chunk coordinates don't fit in the template chunk bits
+		RegionTileSet far = new RegionTileSet((200 << 8) | 50);
+		far.add(0, 0, 0);
+		WorldTileSet translated = new WorldTileSet();
+		scene.translate(far, translated);
+
+		assertEquals(0, translated.size());
+	}
+
+	private static void assertMatches(int[][][] chunks, int baseX, int baseY, Random random)
+	{
+		Client client = client(chunks, baseX, baseY);
+		SceneContext scene = new SceneContext(TEMPLATE_REGIONS, true, chunks, baseX, baseY);
+
+		int translatedTiles = 0;
+		for (int regionId : TEMPLATE_REGIONS)
+		{
+			RegionTileSet region = new RegionTileSet(regionId);
+			for (int i = 0; i < 2000; i++)
+			{
+				region.add(random.nextInt(64), random.nextInt(64), random.nextInt(4));
+			}
+
+			Set<WorldPoint> expected = new HashSet<>();
+			int regionBaseX = RegionTileSet.baseX(regionId);
+			int regionBaseY = RegionTileSet.baseY(regionId);
+			region.forEach((x, y, plane) -> expected.addAll(WorldPoint.toLocalInstance(client, new WorldPoint(regionBaseX + x, regionBaseY + y, plane))));
+
+			WorldTileSet translated = new WorldTileSet();
+			scene.translate(region, translated);
+			Set<WorldPoint> actual = new HashSet<>();
+			translated.forEach((x, y, plane) -> actual.add(new WorldPoint(x, y, plane)));
+
+			assertEquals(expected, actual);
+			translatedTiles += actual.size();
+		}
+		assertTrue(translatedTiles > 0);
+	}
+
+	private static int chunk(int regionId, int chunkX, int chunkY, int plane, int rotation)
+	{
+		int templateChunkX = (RegionTileSet.baseX(regionId) >> 3) + chunkX;
+		int templateChunkY = (RegionTileSet.baseY(regionId) >> 3) + chunkY;
+		return 1 | rotation << 1 | templateChunkY << 3 | templateChunkX << 14 | plane << 24;
+	}
+
+	private static Client client(int[][][] chunks, int baseX, int baseY)
+	{
+		return (Client) Proxy.newProxyInstance(Client.class.getClassLoader(), new Class<?>[]{Client.class}, (proxy, method, args) ->
+		{
+			switch (method.getName())
+			{
+				case "isInInstancedRegion":
+					return true;
+				case "getInstanceTemplateChunks":
+					return chunks;
+				case "getBaseX":
+					return baseX;
+				case "getBaseY":
+					return baseY;
+				default:
+					throw new UnsupportedOperationException(method.getName());
+			}
+		});
+	}
+}
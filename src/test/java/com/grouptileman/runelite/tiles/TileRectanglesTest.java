@@ -0,0 +1,141 @@
+package com.grouptileman.runelite.tiles;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class TileRectanglesTest
+{
+	private static final int REGION_ID = 12850;
+
+	@Test
+	public void coversExactlyTheMarkedTiles()
+	{
+		Random random = new Random(1);
+		for (int i = 0; i < 500; i++)
+		{
+			RegionTileSet region = new RegionTileSet(REGION_ID);
+			double density = random.nextDouble();
+			for (int plane = 0; plane < RegionTileSet.PLANES; plane++)
+			{
+				for (int x = 0; x < RegionTileSet.REGION_SIZE; x++)
+				{
+					for (int y = 0; y < RegionTileSet.REGION_SIZE; y++)
+					{
+						if (random.nextDouble() < density)
+						{
+							region.add(x, y, plane);
+						}
+					}
+				}
+			}
+
+			assertCovers(region);
+		}
+	}
+
+	@Test
+	public void coversFullAndEmptyRegions()
+	{
+		RegionTileSet region = new RegionTileSet(REGION_ID);
+		assertEquals(0, region.rectangles(0).length);
+
+		for (int x = 0; x < RegionTileSet.REGION_SIZE; x++)
+		{
+			for (int y = 0; y < RegionTileSet.REGION_SIZE; y++)
+			{
+				region.add(x, y, 3);
+			}
+		}
+
+		int[] rectangles = region.rectangles(3);
+		assertEquals(1, rectangles.length);
+		assertEquals(64, TileRectangles.width(rectangles[0]));
+		assertEquals(64, TileRectangles.height(rectangles[0]));
+		assertCovers(region);
+	}
+
+	@Test
+	public void recomputesAfterChanges()
+	{
+		RegionTileSet region = new RegionTileSet(REGION_ID);
+		region.add(1, 1, 0);
+		assertEquals(1, region.rectangles(0).length);
+
+		region.add(5, 5, 0);
+		assertEquals(2, region.rectangles(0).length);
+
+		region.remove(1, 1, 0);
+		assertEquals(1, region.rectangles(0).length);
+		assertCovers(region);
+	}
+
+	@Test
+	public void mergesBlobShapedTerritory()
+	{
+		Random random = new Random(2);
+		int tiles = 0;
+		int rectangles = 0;
+		for (int i = 0; i < 100; i++)
+		{
+			RegionTileSet region = blob(random, 1500);
+			assertCovers(region);
+			tiles += region.size();
+			rectangles += region.rectangles(0).length;
+		}
+
+		assertTrue(rectangles * 10 < tiles);
+	}
+
+	private static void assertCovers(RegionTileSet region)
+	{
+		for (int plane = 0; plane < RegionTileSet.PLANES; plane++)
+		{
+			RegionTileSet covered = new RegionTileSet(REGION_ID);
+			for (int rectangle : region.rectangles(plane))
+			{
+				for (int x = TileRectangles.x(rectangle); x < TileRectangles.x(rectangle) + TileRectangles.width(rectangle); x++)
+				{
+					for (int y = TileRectangles.y(rectangle); y < TileRectangles.y(rectangle) + TileRectangles.height(rectangle); y++)
+					{
+						assertTrue("overlapping rectangles at " + x + "," + y, covered.add(x, y, plane));
+						assertTrue("rectangle covers unmarked tile " + x + "," + y, region.contains(x, y, plane));
+					}
+				}
+			}
+
+			for (int y = 0; y < RegionTileSet.REGION_SIZE; y++)
+			{
+				assertEquals(region.row(plane, y), covered.row(plane, y));
+			}
+		}
+	}
+
+	/**
+	 * Random walk with a wide brush, like a tileman player's paths and bases.
+	 */
+	private static RegionTileSet blob(Random random, int walk)
+	{
+		RegionTileSet region = new RegionTileSet(REGION_ID);
+		int x = random.nextInt(64);
+		int y = random.nextInt(64);
+		for (int step = 0; step < walk; step++)
+		{
+			for (int dx = -1; dx <= 1; dx++)
+			{
+				for (int dy = -1; dy <= 1; dy++)
+				{
+					if (RegionTileSet.isValid(x + dx, y + dy, 0))
+					{
+						region.add(x + dx, y + dy, 0);
+					}
+				}
+			}
+			x = Math.min(63, Math.max(0, x + random.nextInt(3) - 1));
+			y = Math.min(63, Math.max(0, y + random.nextInt(3) - 1));
+		}
+		return region;
+	}
+}
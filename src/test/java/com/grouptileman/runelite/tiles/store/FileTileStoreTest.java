@@ -0,0 +1,137 @@
+package com.grouptileman.runelite.tiles.store;
+
+import com.grouptileman.runelite.tiles.RegionTileSet;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.junit.Assert.*;
+
+public class FileTileStoreTest
+{
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void dropsARecordCutShort() throws IOException
+	{
+		Path directory = folder.getRoot().toPath();
+		write(directory, region(12850, 1), region(12851, 2));
+		Path path = directory.resolve(FileTileStore.fileName("alice"));
+		long size = Files.size(path);
+		truncate(path, size - 100);
+
+		FileTileStore store = FileTileStore.open(directory);
+		assertEquals(region(12850, 1).contentHash(), store.load("alice", 12850).contentHash());
+		assertTrue(store.load("alice", 12851).isEmpty());
+		store.close();
+
+		assertTrue(Files.size(path) < size - 100);
+	}
+
+	@Test
+	public void keepsAFileWithACorruptRecordHeader() throws IOException
+	{
+		Path directory = folder.getRoot().toPath();
+		write(directory, region(12850, 1), region(12851, 2));
+		Path path = directory.resolve(FileTileStore.fileName("alice"));
+		long size = Files.size(path);
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE))
+		{
+			// plane mask of the second record, after the file header and the first record
+			long second = size - (size - 2 * Integer.BYTES) / 2;
+			channel.write(ByteBuffer.wrap(new byte[]{(byte) 0xFF}), second + Integer.BYTES);
+		}
+
+		FileTileStore store = FileTileStore.open(directory);
+		assertTrue(store.load("alice", 12850).isEmpty());
+		try
+		{
+			store.save("alice", region(12852, 3));
+			fail("Wrote to a corrupt file");
+		}
+		catch (UncheckedIOException e)
+		{
+			// expected
+		}
+		store.close();
+
+		assertEquals(size, Files.size(path));
+	}
+
+	@Test
+	public void compactsReplacedRecords() throws IOException
+	{
+		Path directory = folder.getRoot().toPath();
+		FileTileStore store = FileTileStore.open(directory);
+		for (int i = 0; i < 100; i++)
+		{
+			store.save("alice", region(12850, i));
+			store.save("alice", region(12851, i + 1));
+		}
+		store.close();
+
+		Path path = directory.resolve(FileTileStore.fileName("alice"));
+		// 200 records of two planes would be 200 KB
+		assertTrue(Files.size(path) < 80 * 1024);
+		assertFalse(Files.exists(path.resolveSibling(path.getFileName() + ".tmp")));
+
+		store = FileTileStore.open(directory);
+		assertEquals(region(12850, 99).contentHash(), store.load("alice", 12850).contentHash());
+		assertEquals(region(12851, 100).contentHash(), store.load("alice", 12851).contentHash());
+		store.close();
+	}
+
+	@Test
+	public void namesFilesIgnoringCase() throws IOException
+	{
+		Path directory = folder.getRoot().toPath();
+		FileTileStore store = FileTileStore.open(directory);
+		store.save("Alice", region(12850, 1));
+		store.save("ALICE", region(12851, 2));
+		assertEquals(region(12850, 1).contentHash(), store.load("alice", 12850).contentHash());
+		store.close();
+
+		assertEquals(FileTileStore.fileName("alice"), FileTileStore.fileName("ALICE"));
+		assertEquals(1, folder.getRoot().list().length);
+		store = FileTileStore.open(directory);
+		assertEquals(2, store.regionIds("Alice").size());
+		store.close();
+	}
+
+	private static void write(Path directory, RegionTileSet... regions) throws IOException
+	{
+		FileTileStore store = FileTileStore.open(directory);
+		for (RegionTileSet region : regions)
+		{
+			store.save("alice", region);
+		}
+		store.close();
+	}
+
+	private static void truncate(Path path, long size) throws IOException
+	{
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE))
+		{
+			channel.truncate(size);
+		}
+	}
+
+	private static RegionTileSet region(int regionId, int seed)
+	{
+		RegionTileSet region = new RegionTileSet(regionId);
+		for (int i = 0; i < 20; i++)
+		{
+			region.add((seed * 7 + i * 3) % 64, (seed + i * 5) % 64, i % 2);
+		}
+		return region;
+	}
+}